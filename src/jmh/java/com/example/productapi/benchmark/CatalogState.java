@@ -0,0 +1,55 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.ProductApiApplication;
+import com.example.productapi.service.PopularityRanking;
+import com.example.productapi.service.ProductSearchIndex;
+import com.example.productapi.service.ProductService;
+import com.example.productapi.service.ProductTextIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Benchmark state running the application without a web server against
+ * an in-memory H2 database filled with a synthetic catalog.
+ *
+ * <p>The catalog size is set with {@code -p products=N} (10k to 5M);
+ * large sizes need a bigger heap, e.g. {@code -jvmArgs -Xmx8g}.</p>
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param({"10000"})
+    public int products;
+
+    ConfigurableApplicationContext context;
+    ProductService productService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ProductApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "hnb.api-url=http://127.0.0.1:9/unavailable",
+                        "logging.level.root=WARN")
+                .run();
+        SyntheticCatalog.populate(context.getBean(JdbcTemplate.class), products);
+        context.getBean(ProductSearchIndex.class).rebuild();
+        context.getBean(ProductTextIndex.class).rebuild();
+        context.getBean(PopularityRanking.class).rebuild();
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.service.ProductCode;
+import com.example.productapi.service.ProductCodeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ProductCodeMap} with the {@code HashMap<String, Long>} it replaces,
+ * for maps from product code to id.
+ *
+ * <p>Each lookup starts from a freshly built {@code String}, as a request path would,
+ * so the {@code HashMap} pays for hashing the string and the packed map for packing it.
+ * Half of the lookups miss. The retained heap of both maps is printed once per trial.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class CodeMapBenchmark {
+
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private Map<String, Long> hashMap;
+    private ProductCodeMap codeMap;
+    private char[][] lookups;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        hashMap = buildHashMap();
+        long hashMapBytes = usedHeap() - before;
+        before = usedHeap();
+        codeMap = buildCodeMap();
+        long codeMapBytes = usedHeap() - before;
+        System.out.printf("%n%d entries: HashMap<String, Long> ~%d B/entry, ProductCodeMap ~%d B/entry (arrays %d B)%n",
+                entries, hashMapBytes / entries, codeMapBytes / entries, codeMap.arrayBytes());
+
+        Random random = new Random(42);
+        lookups = new char[LOOKUPS][];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = SyntheticCatalog.code("BNCH", random.nextInt(2 * entries)).toCharArray();
+        }
+    }
+
+    @Benchmark
+    public Long hashMapGet() {
+        return hashMap.get(new String(nextLookup()));
+    }
+
+    @Benchmark
+    public long codeMapGet() {
+        return codeMap.get(ProductCode.of(new String(nextLookup())));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public Map<String, Long> hashMapBuild() {
+        return buildHashMap();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public ProductCodeMap codeMapBuild() {
+        return buildCodeMap();
+    }
+
+    private char[] nextLookup() {
+        return lookups[next++ & (LOOKUPS - 1)];
+    }
+
+    private Map<String, Long> buildHashMap() {
+        Map<String, Long> map = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            map.put(SyntheticCatalog.code("BNCH", i), (long) i);
+        }
+        return map;
+    }
+
+    private ProductCodeMap buildCodeMap() {
+        ProductCodeMap map = new ProductCodeMap(16);
+        for (int i = 0; i < entries; i++) {
+            map.put(ProductCode.of(SyntheticCatalog.code("BNCH", i)), i);
+        }
+        return map;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductRequest;
+import com.example.productapi.dto.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@code ProductService.createProduct} with a fresh code on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateProductBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Codes {
+        private final AtomicLong next = new AtomicLong();
+
+        ProductRequest nextRequest() {
+            long n = next.incrementAndGet();
+            return new ProductRequest(SyntheticCatalog.code("CRBM", n), "Created " + n,
+                    new BigDecimal("199.99"), "Created by benchmark");
+        }
+    }
+
+    @Benchmark
+    public ProductResponse createProduct(CatalogState state, Codes codes) {
+        return state.productService.createProduct(codes.nextRequest());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Lucene full-text search with the {@code LIKE} name query it replaces,
+ * for a selective and a broad query. Run with the query cache off so the {@code LIKE}
+ * query reaches the database:
+ * {@code -jvmArgs -Dspring.jpa.properties.hibernate.cache.use_query_cache=false}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FullTextSearchBenchmark {
+
+    private static final int PAGE = 20;
+
+    private ProductRepository productRepository;
+
+    @Setup
+    public void setup(CatalogState state) {
+        productRepository = state.context.getBean(ProductRepository.class);
+    }
+
+    @Benchmark
+    public ProductPage fullTextSelective(CatalogState state) {
+        return state.productService.searchProducts("tablet 4242", null, PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponse> likeSelective() {
+        return productRepository.findByNameContainsIgnoreCase("tablet 4242", 0L, Limit.of(PAGE));
+    }
+
+    @Benchmark
+    public ProductPage fullTextBroad(CatalogState state) {
+        return state.productService.searchProducts("camera", null, PAGE);
+    }
+
+    @Benchmark
+    public List<ProductResponse> likeBroad() {
+        return productRepository.findByNameContainsIgnoreCase("camera", 0L, Limit.of(PAGE));
+    }
+}
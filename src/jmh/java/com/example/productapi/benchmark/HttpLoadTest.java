@@ -0,0 +1,86 @@
+package com.example.productapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for comparing thread models of a running instance.
+ *
+ * <p>Each of {@code concurrency} clients sends GET requests back to back for
+ * {@code seconds}; the tool then prints throughput and latency percentiles.
+ * Run it once against the application started normally and once with
+ * {@code --spring.profiles.active=virtual}:</p>
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec \
+ *     -Dbenchmark.main=com.example.productapi.benchmark.HttpLoadTest \
+ *     -Djmh.args="http://localhost:8080/api/products/popular 400 30"
+ * </pre>
+ */
+public final class HttpLoadTest {
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: HttpLoadTest <url> [concurrency=200] [seconds=30]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        AtomicLong errors = new AtomicLong();
+        List<long[]> latencies = new ArrayList<>();
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> clients = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) errors.incrementAndGet();
+                        } catch (Exception ex) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == samples.length) samples = Arrays.copyOf(samples, n * 2);
+                        samples[n++] = System.nanoTime() - started;
+                    }
+                    return Arrays.copyOf(samples, n);
+                }));
+            }
+            for (var c : clients) latencies.add(c.get());
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("url=%s concurrency=%d duration=%ss%n", uri, concurrency, duration.toSeconds());
+        System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n", all.length, errors.get(), all.length / seconds);
+        System.out.printf("p50=%.2f ms p90=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(idx, 0)] / 1_000_000.0;
+    }
+}
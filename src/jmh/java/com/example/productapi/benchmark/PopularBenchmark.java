@@ -0,0 +1,55 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the popular products ranking, both from the cache and with the cache
+ * cleared before every call (in-memory ranking and database-side top-N query).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularBenchmark {
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void clear(CatalogState state) {
+            state.context.getBean(CacheManager.class).getCache(ProductService.POPULAR_CACHE).clear();
+        }
+    }
+
+    @Benchmark
+    public List<PopularProductDto> top3Cached(CatalogState state) {
+        return state.productService.findPopular(3, 1);
+    }
+
+    @Benchmark
+    public List<PopularProductDto> top3Ranking(CatalogState state, ColdCache cold) {
+        return state.productService.findPopular(3, 1);
+    }
+
+    @Benchmark
+    public List<PopularProductDto> top10WithThreshold(CatalogState state, ColdCache cold) {
+        return state.productService.findPopular(10, 15);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.Price;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares converting a page of 1000 EUR prices with {@code BigDecimal}
+ * against fixed-point {@link Price} arithmetic. Run with {@code -prof gc}
+ * to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceConversionBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private BigDecimal[] amounts;
+    private Price[] prices;
+    private BigDecimal rate;
+    private Price fixedRate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        amounts = new BigDecimal[ROWS];
+        prices = new Price[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            amounts[i] = BigDecimal.valueOf(1_000 + 37L * i, 2);
+            prices[i] = Price.of(amounts[i]);
+        }
+        rate = new BigDecimal("1.085600");
+        fixedRate = Price.of(rate);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        for (BigDecimal amount : amounts) {
+            bh.consume(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    @Benchmark
+    public void fixedPoint(Blackhole bh) {
+        for (Price price : prices) {
+            bh.consume(price.convert(fixedRate, 2));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.service.ProductService;
+import com.example.productapi.service.SearchMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code ProductService.findProducts} for every filter combination,
+ * fetching one page of the default size.
+ *
+ * <p>The four-argument overload is called internally, so it bypasses the search result
+ * cache. The prefix search goes through the cache: once with the cache cleared before
+ * every call, once served from it.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Benchmark
+    public ProductPage unfiltered(CatalogState state) {
+        return state.productService.findProducts(null, null, null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage byCode(CatalogState state) {
+        return state.productService.findProducts("bnch0000000123", null, null, PAGE);
+    }
+
+    @State(Scope.Thread)
+    public static class ColdCache {
+
+        @Setup(Level.Invocation)
+        public void clear(CatalogState state) {
+            state.context.getBean(CacheManager.class).getCache(ProductService.SEARCH_CACHE).clear();
+        }
+    }
+
+    @Benchmark
+    public ProductPage byCodePrefix(CatalogState state, ColdCache cold) {
+        return state.productService.findProducts("bnch0000000123", null, SearchMatch.PREFIX, null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage byCodePrefixCached(CatalogState state) {
+        return state.productService.findProducts("BNCH0000000123 ", null, SearchMatch.PREFIX, null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage byName(CatalogState state) {
+        return state.productService.findProducts(null, "tablet 42", null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage byCodeAndName(CatalogState state) {
+        return state.productService.findProducts("BNCH000000", "camera", null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage byShortName(CatalogState state) {
+        return state.productService.findProducts(null, "ph", null, PAGE);
+    }
+
+    @Benchmark
+    public ProductPage noMatch(CatalogState state) {
+        return state.productService.findProducts(null, "nonexistent", null, PAGE);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading one large search page as managed {@code Product} entities, as search
+ * did before, with the constructor-expression projection it uses now.
+ * Run with {@code -prof gc} to compare allocation per request, and with the query cache
+ * off so both paths read from the database:
+ * {@code -jvmArgs -Dspring.jpa.properties.hibernate.cache.use_query_cache=false}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchHydrationBenchmark {
+
+    private static final int PAGE = 1_000;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup
+    public void setup(CatalogState state) {
+        entityManagerFactory = state.context.getBean(EntityManagerFactory.class);
+    }
+
+    @Benchmark
+    public List<ProductResponse> entities() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Product> rows = em.createQuery("select p from Product p where p.id > :after order by p.id", Product.class)
+                    .setParameter("after", 0L)
+                    .setMaxResults(PAGE + 1)
+                    .getResultList();
+            List<ProductResponse> items = rows.stream().limit(PAGE)
+                    .map(p -> new ProductResponse(p.getId(), p.getCode(), p.getName(),
+                            p.getPriceEur(), p.getPriceUsd(), p.getDescription()))
+                    .toList();
+            em.getTransaction().commit();
+            return items;
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public ProductPage projection(CatalogState state) {
+        return state.productService.findProducts(null, null, null, PAGE);
+    }
+}
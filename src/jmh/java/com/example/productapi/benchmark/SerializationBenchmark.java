@@ -0,0 +1,85 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialization of {@link ProductResponse} lists of different sizes.
+ *
+ * <p>{@link #json()} uses the {@code Price} representation; {@link #bigDecimalJson()} serializes the
+ * same rows with {@code BigDecimal} prices as a baseline. Both produce identical bytes; run with
+ * {@code -prof gc} to compare allocation per operation.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private List<ProductResponse> responses;
+    private List<BigDecimalResponse> bigDecimalResponses;
+
+    /**
+     * Same fields as {@link ProductResponse}, with {@code BigDecimal} prices.
+     */
+    public record BigDecimalResponse(Long id, String code, String name, BigDecimal priceEur, BigDecimal priceUsd,
+                                     String description) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        responses = new ArrayList<>(rows);
+        bigDecimalResponses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            BigDecimal eur = BigDecimal.valueOf(1_000 + i, 2);
+            BigDecimal usd = eur.multiply(new BigDecimal("1.08")).setScale(2, RoundingMode.HALF_UP);
+            String code = SyntheticCatalog.code("BNCH", i);
+            String name = SyntheticCatalog.FAMILIES[i % SyntheticCatalog.FAMILIES.length] + " " + i;
+            String description = "Synthetic benchmark product number " + i;
+            responses.add(new ProductResponse((long) i, code, name, eur, usd, description));
+            // Fresh BigDecimals per row, as loaded from the database, so no cached toString() is reused
+            bigDecimalResponses.add(new BigDecimalResponse((long) i, code, name,
+                    new BigDecimal(eur.unscaledValue(), 2), new BigDecimal(usd.unscaledValue(), 2), description));
+        }
+        if (!Arrays.equals(json(), bigDecimalJson())) {
+            throw new IllegalStateException("Price and BigDecimal serialization differ");
+        }
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public byte[] bigDecimalJson() {
+        return objectMapper.writeValueAsBytes(bigDecimalResponses);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.productapi.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates a deterministic synthetic product catalog directly through JDBC.
+ *
+ * <p>Codes look like {@code BNCH00000000042}, names combine a product family
+ * with the row number (e.g. "Phone 42"), and every product gets random
+ * rating aggregates so the popularity paths have data to rank.</p>
+ */
+public final class SyntheticCatalog {
+
+    static final String[] FAMILIES = {"Phone", "Laptop", "Tablet", "Watch", "Camera", "Speaker", "Monitor", "Router"};
+    private static final int BATCH = 10_000;
+    private static final BigDecimal RATE = new BigDecimal("1.08");
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Inserts {@code count} products and moves the product sequence past them.
+     *
+     * @param jdbc  JDBC template bound to the application datasource
+     * @param count number of products to insert
+     */
+    public static void populate(JdbcTemplate jdbc, int count) {
+        long base = jdbc.queryForObject("select next value for product_seq", Long.class);
+        Random random = new Random(42);
+        for (int from = 0; from < count; from += BATCH) {
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (int i = from; i < Math.min(from + BATCH, count); i++) {
+                BigDecimal priceEur = BigDecimal.valueOf(10 + random.nextInt(2_000)).setScale(2, RoundingMode.HALF_UP);
+                int ratingCount = random.nextInt(20);
+                int ratingSum = ratingCount == 0 ? 0 : ratingCount + random.nextInt(4 * ratingCount + 1);
+                rows.add(new Object[]{
+                        base + 1 + i,
+                        code("BNCH", i),
+                        code("bnch", i),
+                        FAMILIES[i % FAMILIES.length] + " " + i,
+                        (FAMILIES[i % FAMILIES.length] + " " + i).toLowerCase(Locale.ROOT),
+                        priceEur,
+                        priceEur.multiply(RATE).setScale(2, RoundingMode.HALF_UP),
+                        "Synthetic benchmark product number " + i,
+                        ratingSum,
+                        ratingCount,
+                        ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount
+                });
+            }
+            jdbc.batchUpdate("""
+                    insert into product (id, code, code_lc, name, name_lc, price_eur, price_usd, description,
+                                         rating_sum, rating_count, rating_average)
+                    values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                    """, rows);
+        }
+        jdbc.execute("alter sequence product_seq restart with " + (base + count + 1_000));
+    }
+
+    /**
+     * Builds a 15-character product code from a 4-character prefix and a number.
+     *
+     * @param prefix 4-character prefix
+     * @param n      sequence number
+     * @return product code
+     */
+    static String code(String prefix, long n) {
+        return prefix + String.format("%011d", n);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.productapi.benchmark;
+
+import com.example.productapi.dto.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the wire formats a search page can be sent in: JSON, CBOR and Smile,
+ * each plain and gzipped as the server does for large responses.
+ *
+ * <p>{@link #write()} measures encoding a page, {@link #read()} decoding it as a client
+ * would. Payload sizes are printed once per trial. Rows carry descriptions of a few hundred
+ * characters, which dominate real payloads.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final String[] WORDS = {"fast", "compact", "battery", "display", "wireless", "camera",
+            "storage", "premium", "lightweight", "durable", "charging", "screen", "sound", "design"};
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private List<ProductResponse> responses;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        reader = mapper.readerFor(new TypeReference<List<ProductResponse>>() {
+        });
+        Random random = new Random(42);
+        responses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            BigDecimal eur = BigDecimal.valueOf(1_000 + random.nextInt(200_000), 2);
+            BigDecimal usd = eur.multiply(new BigDecimal("1.08")).setScale(2, RoundingMode.HALF_UP);
+            responses.add(new ProductResponse((long) i, SyntheticCatalog.code("BNCH", i),
+                    SyntheticCatalog.FAMILIES[i % SyntheticCatalog.FAMILIES.length] + " " + i,
+                    eur, usd, description(random)));
+        }
+        payload = write();
+        if (!responses.equals(read())) {
+            throw new IllegalStateException(format + " does not round-trip");
+        }
+        System.out.printf("%n%s%s, %d rows: %d bytes%n", format, gzip ? "+gzip" : "", rows, payload.length);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        byte[] bytes = mapper.writeValueAsBytes(responses);
+        return gzip ? gzip(bytes) : bytes;
+    }
+
+    @Benchmark
+    public List<ProductResponse> read() {
+        return reader.readValue(gzip ? gunzip(payload) : payload);
+    }
+
+    private static String description(Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 20 + random.nextInt(30); n > 0; n--) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]).append(n > 1 ? ' ' : '.');
+        }
+        return sb.toString();
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) {
+        try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return gz.readAllBytes();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
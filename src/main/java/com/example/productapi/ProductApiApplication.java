@@ -3,9 +3,14 @@ package com.example.productapi;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableCaching
+// Caching wraps the transaction advice, so cache hits and callers waiting on an
+// in-flight computation (@Cacheable(sync = true)) never open a transaction
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableScheduling
 public class ProductApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProductApiApplication.class, args);
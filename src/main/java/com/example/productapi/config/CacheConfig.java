@@ -1,27 +1,59 @@
 package com.example.productapi.config;
 
+import com.example.productapi.service.ProductService;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * Spring configuration for caching using Caffeine.
  *
  * <p>Defines a cache manager bean that automatically expires cache entries
- * 10 minutes after they are written.</p>
+ * 10 minutes after they are written and keeps at most 1,000 entries per cache.
+ * Cache puts and evictions are deferred until the surrounding transaction commits.</p>
+ *
+ * <p>The search result cache and the product-by-code near-cache have their own size
+ * bounds and time to live, set with {@code product.search.cache.*} and
+ * {@code product.lookup.cache.*}.</p>
+ *
+ * <p>Values read from a read replica before the last product (or, for popular products,
+ * rating) change can have reached it are handed to the caller but not kept; see
+ * {@link ReplicaReadExpiry}.</p>
+ *
+ * <p>Caches are declared up front and record hit/miss statistics, so they are
+ * bound to the metrics registry at startup.</p>
  */
 @Configuration
 public class CacheConfig {
 
     @Bean
-    public CaffeineCacheManager cacheManager() {
+    public CaffeineCacheManager cacheManager(@Value("${product.search.cache.max-size:10000}") long searchMaxSize,
+                                             @Value("${product.search.cache.ttl:PT1M}") Duration searchTtl,
+                                             @Value("${product.lookup.cache.max-size:100000}") long lookupMaxSize,
+                                             @Value("${product.lookup.cache.ttl:PT10M}") Duration lookupTtl) {
         CaffeineCacheManager cm = new CaffeineCacheManager();
         cm.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .maximumSize(1_000)
+                .expireAfter(new ReplicaReadExpiry(Duration.ofMinutes(10), ReadRouting::lastRatingChange))
+                .recordStats()
         );
+        cm.setCacheNames(List.of(ProductService.POPULAR_CACHE));
+        cm.registerCustomCache(ProductService.SEARCH_CACHE, Caffeine.newBuilder()
+                .maximumSize(searchMaxSize)
+                .expireAfter(new ReplicaReadExpiry(searchTtl, ReadRouting::lastProductChange))
+                .recordStats()
+                .build());
+        cm.registerCustomCache(ProductService.PRODUCT_CACHE, Caffeine.newBuilder()
+                .maximumSize(lookupMaxSize)
+                .expireAfter(new ReplicaReadExpiry(lookupTtl, ReadRouting::lastProductChange))
+                .recordStats()
+                .build());
+        cm.setTransactionAware(true);
         return cm;
     }
 }
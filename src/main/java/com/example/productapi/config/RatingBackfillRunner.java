@@ -0,0 +1,41 @@
+package com.example.productapi.config;
+
+import com.example.productapi.repository.ProductRepository;
+import com.example.productapi.service.ProductService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-time job that recomputes the per-product rating aggregates from existing reviews.
+ *
+ * <p>Enable it with {@code product.ratings.backfill=true} when upgrading a database
+ * that already contains reviews. Products are processed in id ranges, each in its
+ * own transaction, before the popularity ranking is loaded.</p>
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = "product.ratings.backfill", havingValue = "true")
+public class RatingBackfillRunner implements ApplicationRunner {
+
+    private static final long CHUNK = 10_000;
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long maxId = productRepository.findMaxId();
+        if (maxId == null) return;
+
+        int updated = 0;
+        for (long from = 1; from <= maxId; from += CHUNK) {
+            updated += productService.recomputeRatingAggregates(from, from + CHUNK - 1);
+        }
+        log.info("Backfilled rating aggregates for {} products", updated);
+    }
+}
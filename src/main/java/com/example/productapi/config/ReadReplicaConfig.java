@@ -0,0 +1,87 @@
+package com.example.productapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to read replicas when
+ * {@code product.datasource.replica-urls} is set.
+ *
+ * <p>The application data source is a {@link LazyConnectionDataSourceProxy}: it defers
+ * fetching a physical connection until the first statement, by which time the JPA
+ * transaction manager has marked the connection read-only for
+ * {@code @Transactional(readOnly = true)} calls. Read-only connections come from the
+ * {@link ReplicaDataSource}, everything else from the primary pool configured under
+ * {@code spring.datasource}.</p>
+ *
+ * <p>Replicas share the primary's credentials unless
+ * {@code product.datasource.replica-username} and {@code replica-password} are set.
+ * Replica pools give up on a connection after {@code replica-connection-timeout}, and the
+ * read then goes to the next replica or the primary. Cached values read from a replica less
+ * than {@code replica-max-lag} after the change they depend on are not kept.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryDataSource(@Value("${spring.datasource.url}") String url,
+                                              @Value("${spring.datasource.username:}") String username,
+                                              @Value("${spring.datasource.password:}") String password) {
+        return pool("primary", url, username, password, false);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaDataSource replicaDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                               @Value("${product.datasource.replica-urls}") List<String> urls,
+                                               @Value("${product.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                               @Value("${product.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                               @Value("${product.datasource.replica-connection-timeout:PT0.5S}") Duration connectionTimeout,
+                                               @Value("${product.datasource.replica-max-lag:PT5S}") Duration maxLag,
+                                               MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicas = urls.stream()
+                .filter(url -> !url.isBlank())
+                .map(url -> {
+                    HikariDataSource pool = pool("replica-" + urls.indexOf(url), url.trim(), username, password, true);
+                    pool.setConnectionTimeout(connectionTimeout.toMillis());
+                    return pool;
+                })
+                .toList();
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(primary, replicas, maxLag);
+        Gauge.builder("datasource.replicas.healthy", replicaDataSource, ReplicaDataSource::healthyReplicas)
+                .description("Read replicas currently in rotation")
+                .register(meterRegistry);
+        return replicaDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password, boolean readOnly) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setReadOnly(readOnly);
+        return pool;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.productapi.config;
+
+import java.time.Duration;
+
+/**
+ * Per-thread switch sending read-only transactions to the primary database
+ * instead of a replica, for requests that must see their own writes.
+ *
+ * <p>It also remembers when products and ratings last changed, and how far behind the
+ * replica reads of the current thread may be, so that {@link ReplicaReadExpiry} can keep
+ * a lagging replica from putting stale entries back into a cache that was just invalidated.</p>
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+    private static final ThreadLocal<Long> REPLICA_HORIZON = new ThreadLocal<>();
+    private static volatile long lastProductChange = System.nanoTime() - Duration.ofDays(1).toNanos();
+    private static volatile long lastRatingChange = lastProductChange;
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Sends read-only transactions started by the current thread to the primary.
+     */
+    public static void usePrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    /**
+     * Restores replica routing for the current thread.
+     */
+    public static void clear() {
+        PRIMARY.remove();
+    }
+
+    /**
+     * Indicates whether the current thread must read from the primary.
+     *
+     * @return true if replicas must not be used
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY.get() != null;
+    }
+
+    /**
+     * Runs the given action with all its reads on the primary.
+     *
+     * @param action action to run
+     */
+    public static void onPrimary(Runnable action) {
+        if (isPrimaryRequired()) {
+            action.run();
+            return;
+        }
+        usePrimary();
+        try {
+            action.run();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * Records that products have been created or rewritten.
+     */
+    public static void productsChanged() {
+        lastProductChange = System.nanoTime();
+    }
+
+    /**
+     * Records that product ratings have changed.
+     */
+    public static void ratingsChanged() {
+        lastRatingChange = System.nanoTime();
+    }
+
+    /**
+     * Returns when products were last created or rewritten, on the {@link System#nanoTime()} scale.
+     *
+     * @return time of the last product change
+     */
+    public static long lastProductChange() {
+        return lastProductChange;
+    }
+
+    /**
+     * Returns when product ratings last changed, on the {@link System#nanoTime()} scale.
+     *
+     * @return time of the last rating change
+     */
+    public static long lastRatingChange() {
+        return lastRatingChange;
+    }
+
+    /**
+     * Records that the current thread reads from a replica that may lag up to {@code maxLag}.
+     *
+     * @param maxLag how far the replica may lag behind the primary
+     */
+    static void replicaRead(Duration maxLag) {
+        long horizon = System.nanoTime() - maxLag.toNanos();
+        Long earlier = REPLICA_HORIZON.get();
+        REPLICA_HORIZON.set(earlier == null ? horizon : Math.min(earlier, horizon));
+    }
+
+    /**
+     * Returns and forgets the point in time up to which the replica reads of the current
+     * thread are certain to be up to date.
+     *
+     * @return the horizon on the {@link System#nanoTime()} scale, or {@code null} if the
+     *         thread has not read from a replica
+     */
+    static Long takeReplicaHorizon() {
+        Long horizon = REPLICA_HORIZON.get();
+        REPLICA_HORIZON.remove();
+        return horizon;
+    }
+}
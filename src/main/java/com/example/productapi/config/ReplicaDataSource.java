@@ -0,0 +1,132 @@
+package com.example.productapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source for read-only transactions, spreading connections round-robin over
+ * the healthy replicas.
+ *
+ * <p>A replica is taken out of rotation when a connection to it fails or when the
+ * periodic health check cannot validate a connection, and put back once the check
+ * passes again. With no healthy replica, or when {@link ReadRouting} requires it,
+ * connections come from the primary. Replica connections are recorded in {@link ReadRouting}
+ * with {@code maxLag}, so caches can tell whether a value was read before a recent change
+ * reached the replica.</p>
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    private Connection connect(Connector connector) throws SQLException {
+        if (!ReadRouting.isPrimaryRequired() && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) continue;
+                try {
+                    Connection connection = connector.connect(replica.dataSource);
+                    ReadRouting.replicaRead(maxLag);
+                    return connection;
+                } catch (SQLException ex) {
+                    replica.markDown(ex);
+                }
+            }
+        }
+        return connector.connect(primary);
+    }
+
+    /**
+     * Validates a connection to every replica and updates which ones are in rotation.
+     */
+    @Scheduled(fixedDelayString = "${product.datasource.replica-health-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection con = replica.dataSource.getConnection()) {
+                if (con.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown(null);
+                }
+            } catch (SQLException ex) {
+                replica.markDown(ex);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of replicas currently in rotation.
+     *
+     * @return healthy replica count
+     */
+    public int healthyReplicas() {
+        return (int) replicas.stream().filter(r -> r.healthy).count();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Connector {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        void markDown(SQLException cause) {
+            if (healthy) {
+                log.warn("Taking read replica {} out of rotation", dataSource, cause);
+            }
+            healthy = false;
+        }
+
+        void markUp() {
+            if (!healthy) {
+                log.info("Read replica {} is back in rotation", dataSource);
+            }
+            healthy = true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.productapi.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Expires cache entries a fixed time after they are written, unless they were loaded
+ * from a replica that may not have seen the last change they depend on yet. Such
+ * entries expire at once: the caller still gets the value, but the next one reloads it.
+ */
+class ReplicaReadExpiry implements Expiry<Object, Object> {
+
+    private final long ttlNanos;
+    private final LongSupplier lastChange;
+
+    /**
+     * @param ttl time to live of entries loaded from an up-to-date source
+     * @param lastChange time of the last change the cached values depend on
+     */
+    ReplicaReadExpiry(Duration ttl, LongSupplier lastChange) {
+        this.ttlNanos = ttl.toNanos();
+        this.lastChange = lastChange;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        Long horizon = ReadRouting.takeReplicaHorizon();
+        return horizon != null && horizon - lastChange.getAsLong() < 0 ? 0 : ttlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
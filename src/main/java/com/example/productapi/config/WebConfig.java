@@ -1,26 +1,68 @@
 package com.example.productapi.config;
 
+import com.example.productapi.controller.ProductController;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Spring Web MVC configuration class.
  *
  * <p>Configures Cross-Origin Resource Sharing (CORS) to allow requests
- * from the frontend application running on http://localhost:4200.</p>
+ * from the frontend application running on http://localhost:4200,
+ * and exposes the pagination cursor and ETag headers to it.</p>
+ *
+ * <p>Requests carrying {@value #READ_YOUR_WRITES_HEADER}{@code : true} read from the
+ * primary database even when read replicas are configured.</p>
  */
 @Configuration
 public class WebConfig {
+
+    /**
+     * Request header asking for reads from the primary database.
+     */
+    public static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes";
+
     @Bean
-    public WebMvcConfigurer corsConfigurer() {
+    public WebMvcConfigurer webMvcConfigurer() {
         return new WebMvcConfigurer() {
             @Override
             public void addCorsMappings(CorsRegistry registry) {
                 registry.addMapping("/api/**")
                         .allowedOrigins("http://localhost:4200")
-                        .allowedMethods("GET", "POST", "PUT", "DELETE");
+                        .allowedMethods("GET", "POST", "PUT", "DELETE")
+                        .exposedHeaders(ProductController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG);
+            }
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new AsyncHandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        if (Boolean.parseBoolean(request.getHeader(READ_YOUR_WRITES_HEADER))) {
+                            ReadRouting.usePrimary();
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                                Object handler, Exception ex) {
+                        ReadRouting.clear();
+                    }
+
+                    @Override
+                    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                               Object handler) {
+                        ReadRouting.clear();
+                    }
+                });
             }
         };
     }
@@ -1,34 +1,83 @@
 package com.example.productapi.controller;
 
+import com.example.productapi.config.ReadRouting;
+import com.example.productapi.dto.BulkImportResult;
 import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.dto.ProductPage;
 import com.example.productapi.dto.ProductRequest;
 import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.dto.ReviewRequest;
+import com.example.productapi.service.CatalogVersion;
+import com.example.productapi.service.ProductImportService;
 import com.example.productapi.service.ProductService;
+import com.example.productapi.service.ReviewIngestionQueue;
+import com.example.productapi.service.SearchMatch;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * REST controller for managing products.
  * Provides endpoints to create products, search products, and get popular products.
+ *
+ * <p>Search, lookup and popular responses carry a weak ETag derived from the {@link CatalogVersion}
+ * and the negotiated format, and {@code Vary: Accept, Accept-Encoding}. A request whose
+ * {@code If-None-Match} matches the current version in the same format is answered with
+ * 304 Not Modified before any repository is queried, once its parameters have been validated.</p>
+ *
+ * <p>Besides JSON, responses are rendered as CBOR or Smile when the {@code Accept} header
+ * asks for {@code application/cbor} or {@code application/x-jackson-smile}; Spring registers
+ * those converters because the Jackson binary dataformats are on the classpath.</p>
  */
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    /**
+     * Response header carrying the cursor for the next search page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final List<MediaType> REPRESENTATIONS = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/x-jackson-smile"));
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ReviewIngestionQueue reviewIngestionQueue;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService,
+                             ReviewIngestionQueue reviewIngestionQueue, CatalogVersion catalogVersion,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.reviewIngestionQueue = reviewIngestionQueue;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -52,18 +101,81 @@ public class ProductController {
     }
 
     /**
-     * Searches for products by code and/or name.
+     * Imports many products at once from a JSON array or an NDJSON stream.
+     *
+     * @param body raw request body, parsed row by row
+     * @return number of received and created products, plus per-row errors
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(
+            summary = "Bulk import products",
+            description = "Creates products from a JSON array or NDJSON stream of product requests. "
+                    + "Rows are inserted in batches; invalid or duplicate rows are reported without aborting the import.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished",
+                            content = @Content(schema = @Schema(implementation = BulkImportResult.class)))
+            }
+    )
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResult> bulkImport(InputStream body) throws IOException {
+        try (MappingIterator<ProductRequest> rows = objectMapper.readerFor(ProductRequest.class).readValues(body)) {
+            return ResponseEntity.ok(productImportService.importProducts(rows));
+        }
+    }
+
+    /**
+     * Accepts a review for a product. The review is queued and written in the background,
+     * so it becomes visible in ratings shortly after the response.
+     *
+     * @param code product code
+     * @param req the review payload
+     * @return 202 Accepted once the review is queued
+     */
+    @Operation(
+            summary = "Add a product review",
+            description = "Queues a review for the product with the given code. Reviews are written in batches "
+                    + "in the background; when the queue is full the request is rejected with 429 and a Retry-After header.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Review accepted"),
+                    @ApiResponse(responseCode = "400", description = "Invalid input data"),
+                    @ApiResponse(responseCode = "404", description = "Product not found"),
+                    @ApiResponse(responseCode = "429", description = "Review queue is full")
+            }
+    )
+    @PostMapping("/{code}/reviews")
+    public ResponseEntity<Void> addReview(
+            @Parameter(description = "Product code", example = "PROD00000000001")
+            @PathVariable("code") String code,
+            @Valid @RequestBody ReviewRequest req) {
+        reviewIngestionQueue.submit(code, req);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Searches for products by code and/or name, one keyset page at a time.
+     * The cursor for the next page, if any, is returned in the
+     * {@value #NEXT_CURSOR_HEADER} response header.
      *
      * @param code optional code filter
      * @param name optional name filter
-     * @return list of products matching the filters
+     * @param match whether the filters match anywhere or at the start of the value
+     * @param after optional cursor from the previous page
+     * @param limit maximum number of products to return
+     * @param currency optional currency to render prices in
+     * @param request current request, checked for a matching {@code If-None-Match}
+     * @return list of products matching the filters, or 304 if the catalog has not changed
      */
     @Operation(
             summary = "Search products",
-            description = "Searches products by partial code and/or name. Case-insensitive.",
+            description = "Searches products by partial code and/or name. Case-insensitive. "
+                    + "With match=prefix, code and name must start with the given text. "
+                    + "Results are ordered by id, or by code or name with match=prefix, and paginated; "
+                    + "pass the " + NEXT_CURSOR_HEADER + " header value as 'after' to fetch the next page.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Products found",
-                            content = @Content(schema = @Schema(implementation = ProductResponse.class)))
+                            content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor, limit, match or currency")
             }
     )
     @GetMapping
@@ -71,28 +183,222 @@ public class ProductController {
             @Parameter(description = "Partial product code", example = "PROD00000000001")
             @RequestParam(name = "code", required = false) String code,
             @Parameter(description = "Partial product name", example = "Samsung")
-            @RequestParam(name = "name", required = false) String name) {
-        return ResponseEntity.ok(productService.findProducts(code, name));
+            @RequestParam(name = "name", required = false) String name,
+            @Parameter(description = "How code and name are matched: contains or prefix", example = "prefix")
+            @RequestParam(name = "match", defaultValue = "contains") String match,
+            @Parameter(description = "Opaque cursor returned with the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @Parameter(description = "Maximum number of products to return (1-1000)", example = "100")
+            @RequestParam(name = "limit", defaultValue = "100") int limit,
+            @Parameter(description = "Currency to render prices in (ISO 4217)", example = "GBP")
+            @RequestParam(name = "currency", required = false) String currency,
+            WebRequest request) {
+        // Invalid arguments are rejected even when the client holds a current ETag
+        SearchMatch searchMatch = SearchMatch.parse(match);
+        ProductService.validateSearch(code, name, searchMatch, after, limit);
+        UnaryOperator<ProductResponse> pricing = productService.pricesIn(currency);
+        // Read the version before querying, so a concurrent change can only make the ETag older
+        String etag = etag(request);
+        if (request.checkNotModified(etag)) {
+            return conditional(HttpStatus.NOT_MODIFIED, etag).build();
+        }
+        ProductPage page = productService.findProducts(code, name, searchMatch, after, limit);
+        ResponseEntity.BodyBuilder ok = conditional(HttpStatus.OK, etag);
+        if (page.nextCursor() != null) {
+            ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return ok.body(currency == null ? page.items() : page.items().stream().map(pricing).toList());
+    }
+
+    /**
+     * Searches products by free text, most relevant first.
+     * Not answered with ETags: the full-text index becomes consistent
+     * up to a second after the catalog version changes.
+     *
+     * @param q free-text query
+     * @param after optional cursor from the previous page
+     * @param limit maximum number of products to return
+     * @param currency optional currency to render prices in
+     * @return list of products ordered by relevance
+     */
+    @Operation(
+            summary = "Full-text search",
+            description = "Searches product names, codes and descriptions. Every word must match; "
+                    + "small typos are tolerated. Results are ordered by relevance and paginated; pass the "
+                    + NEXT_CURSOR_HEADER + " header value as 'after' to fetch the next page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Products found",
+                            content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Blank query, or invalid cursor, limit or currency")
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponse>> fullTextSearch(
+            @Parameter(description = "Words to search for", example = "samsung phone")
+            @RequestParam(name = "q") String q,
+            @Parameter(description = "Opaque cursor returned with the previous page")
+            @RequestParam(name = "after", required = false) String after,
+            @Parameter(description = "Maximum number of products to return (1-1000)", example = "20")
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @Parameter(description = "Currency to render prices in (ISO 4217)", example = "GBP")
+            @RequestParam(name = "currency", required = false) String currency) {
+        UnaryOperator<ProductResponse> pricing = productService.pricesIn(currency);
+        ProductPage page = productService.searchProducts(q, after, limit);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            ok.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return ok.body(currency == null ? page.items() : page.items().stream().map(pricing).toList());
+    }
+
+    /**
+     * Streams all products matching the filters as newline-delimited JSON.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @param currency optional currency to render prices in
+     * @return streaming body writing one product per line
+     */
+    @Operation(
+            summary = "Stream products",
+            description = "Streams every product matching the partial code and/or name as NDJSON, ordered by id.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Products streamed",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ProductResponse.class)))
+            }
+    )
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(
+            @Parameter(description = "Partial product code", example = "PROD00000000001")
+            @RequestParam(name = "code", required = false) String code,
+            @Parameter(description = "Partial product name", example = "Samsung")
+            @RequestParam(name = "name", required = false) String name,
+            @Parameter(description = "Currency to render prices in (ISO 4217)", example = "GBP")
+            @RequestParam(name = "currency", required = false) String currency) {
+        UnaryOperator<ProductResponse> pricing = productService.pricesIn(currency);
+        // The body is written on another thread, so carry the read routing over
+        boolean primary = ReadRouting.isPrimaryRequired();
+        StreamingResponseBody body = out -> {
+            if (primary) ReadRouting.usePrimary();
+            try {
+                productService.streamProducts(code, name, product -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(pricing.apply(product)));
+                        out.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } finally {
+                ReadRouting.clear();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * Returns the top 3 popular products.
+     * Returns the product with exactly the given code.
      *
-     * @return map containing a list of top 3 popular products and average review
+     * @param code product code
+     * @param currency optional currency to render the price in
+     * @param request current request, checked for a matching {@code If-None-Match}
+     * @return the product, or 304 if it exists and the catalog has not changed
      */
     @Operation(
-            summary = "Get top 3 popular products and average review",
-            description = "Returns the top 3 products sorted by average review rating.",
+            summary = "Get a product by code",
+            description = "Returns the product with exactly the given code (case-sensitive). "
+                    + "Use this instead of the 'code' search filter for exact lookups.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Product found",
+                            content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Invalid currency"),
+                    @ApiResponse(responseCode = "404", description = "Product not found")
+            }
+    )
+    @GetMapping("/{code}")
+    public ResponseEntity<ProductResponse> get(
+            @Parameter(description = "Product code", example = "PROD00000000001")
+            @PathVariable("code") String code,
+            @Parameter(description = "Currency to render prices in (ISO 4217)", example = "GBP")
+            @RequestParam(name = "currency", required = false) String currency,
+            WebRequest request) {
+        UnaryOperator<ProductResponse> pricing = productService.pricesIn(currency);
+        String etag = etag(request);
+        // The ETag only covers the catalog, so the code must exist before a 304 is sent
+        ProductResponse product = productService.findByCode(code);
+        if (request.checkNotModified(etag)) {
+            return conditional(HttpStatus.NOT_MODIFIED, etag).build();
+        }
+        return conditional(HttpStatus.OK, etag).body(pricing.apply(product));
+    }
+
+    /**
+     * Returns the most popular products.
+     *
+     * @param limit maximum number of products to return
+     * @param minReviews minimum number of reviews a product needs to be listed
+     * @param request current request, checked for a matching {@code If-None-Match}
+     * @return map containing a list of popular products and average review,
+     *         or 304 if the catalog has not changed
+     */
+    @Operation(
+            summary = "Get popular products and average review",
+            description = "Returns the top products sorted by average review rating. "
+                    + "Only products with at least 'minReviews' reviews are considered.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Popular products retrieved",
-                            content = @Content(schema = @Schema(implementation = PopularProductDto.class)))
+                            content = @Content(schema = @Schema(implementation = PopularProductDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag"),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit or minReviews")
             }
     )
     @GetMapping("/popular")
-    public ResponseEntity<Map<String, List<PopularProductDto>>> popular() {
-        List<PopularProductDto> list = productService.findTop3Popular();
+    public ResponseEntity<Map<String, List<PopularProductDto>>> popular(
+            @Parameter(description = "Maximum number of products to return (1-100)", example = "3")
+            @RequestParam(name = "limit", defaultValue = "3") int limit,
+            @Parameter(description = "Minimum number of reviews (0-1000)", example = "1")
+            @RequestParam(name = "minReviews", defaultValue = "1") int minReviews,
+            WebRequest request) {
+        ProductService.validatePopular(limit, minReviews);
+        String etag = etag(request);
+        if (request.checkNotModified(etag)) {
+            return conditional(HttpStatus.NOT_MODIFIED, etag).build();
+        }
+        List<PopularProductDto> list = productService.findPopular(limit, minReviews);
         Map<String, List<PopularProductDto>> resp = new HashMap<>();
         resp.put("popularProducts", list);
-        return ResponseEntity.ok(resp);
+        return conditional(HttpStatus.OK, etag).body(resp);
+    }
+
+    /**
+     * Returns the ETag of the current catalog version in the format the response will be
+     * rendered in, picked from {@code Accept} the way the message converters pick it.
+     */
+    private String etag(WebRequest request) {
+        MediaType representation = MediaType.APPLICATION_JSON;
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && !accept.isBlank()) {
+            try {
+                List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+                MimeTypeUtils.sortBySpecificity(accepted);
+                representation = accepted.stream()
+                        .filter(type -> type.getQualityValue() > 0)
+                        .flatMap(type -> REPRESENTATIONS.stream().filter(type::isCompatibleWith))
+                        .findFirst()
+                        .orElse(MediaType.APPLICATION_JSON);
+            } catch (InvalidMediaTypeException ex) {
+                // Left to content negotiation, which rejects the request
+            }
+        }
+        return catalogVersion.etag(representation.getSubtype());
+    }
+
+    private static ResponseEntity.BodyBuilder conditional(HttpStatus status, String etag) {
+        return ResponseEntity.status(status)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noCache());
     }
 }
@@ -0,0 +1,14 @@
+package com.example.productapi.dto;
+
+/**
+ * A single row rejected by a bulk product import.
+ *
+ * @param index Zero-based position of the row in the submitted payload
+ * @param code  Product code of the row, if it could be read
+ * @param error Reason the row was rejected
+ */
+public record BulkImportError(
+        int index,
+        String code,
+        String error
+) { }
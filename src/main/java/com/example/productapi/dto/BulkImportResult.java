@@ -0,0 +1,16 @@
+package com.example.productapi.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import.
+ *
+ * @param received Number of rows read from the payload
+ * @param created  Number of products inserted
+ * @param errors   Rows that were rejected, with the reason
+ */
+public record BulkImportResult(
+        int received,
+        int created,
+        List<BulkImportError> errors
+) { }
@@ -0,0 +1,188 @@
+package com.example.productapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.swagger.v3.oas.annotations.media.Schema;
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Decimal amount held as a long number of minor units plus a scale,
+ * e.g. 12.50 is {@code (1250, 2)}.
+ *
+ * <p>Rate conversion is done in fixed-point long arithmetic and JSON output is
+ * written digit by digit by {@link PriceSerializer}, so rendering a price does not
+ * allocate {@code BigDecimal}s or strings. Results and output are identical to
+ * {@link BigDecimal} with {@link RoundingMode#HALF_UP}. Amounts whose exact product
+ * would overflow a long fall back to {@code BigDecimal} arithmetic.</p>
+ *
+ * @param unscaled amount in units of 10<sup>-scale</sup>
+ * @param scale    number of digits after the decimal point, 0 to 18
+ */
+@Schema(type = "number", example = "19.99")
+@JsonSerialize(using = PriceSerializer.class)
+public record Price(long unscaled, int scale) {
+
+    static final int MAX_SCALE = 18;
+
+    /**
+     * Longest text {@link #writeTo(char[], int)} can produce: sign, 19 digits and the decimal point.
+     */
+    public static final int MAX_CHARS = 21;
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    public Price {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Price scale must be between 0 and " + MAX_SCALE + ": " + scale);
+        }
+    }
+
+    /**
+     * Converts a {@code BigDecimal}, keeping its scale. Negative scales are normalized to 0.
+     *
+     * @param value amount, may be {@code null}
+     * @return price, or {@code null} if the value is {@code null}
+     * @throws ArithmeticException if the value does not fit in a long with a scale of at most 18
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Price of(BigDecimal value) {
+        if (value == null) return null;
+        if (value.scale() < 0) value = value.setScale(0);
+        if (value.scale() > MAX_SCALE) {
+            throw new ArithmeticException("Price scale must be at most " + MAX_SCALE + ": " + value);
+        }
+        return new Price(value.unscaledValue().longValueExact(), value.scale());
+    }
+
+    /**
+     * Multiplies an amount by a rate and rounds half-up to the given scale.
+     * Uses fixed-point arithmetic when both values fit in a {@code Price}.
+     *
+     * @param amount      amount to convert
+     * @param rate        conversion rate
+     * @param targetScale scale of the result, 0 to 18
+     * @return converted amount
+     */
+    public static BigDecimal convert(BigDecimal amount, BigDecimal rate, int targetScale) {
+        if (fits(amount) && fits(rate)) {
+            return of(amount).convert(of(rate), targetScale).toBigDecimal();
+        }
+        return amount.multiply(rate).setScale(targetScale, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Indicates whether a value can be held without loss; true for up to 18 significant digits.
+     *
+     * @param value value to check
+     * @return true if {@link #of(BigDecimal)} accepts the value
+     */
+    public static boolean fits(BigDecimal value) {
+        return value.scale() >= 0 && value.scale() <= MAX_SCALE && value.precision() <= 18;
+    }
+
+    /**
+     * Returns the amount as a {@code BigDecimal} with the same scale.
+     *
+     * @return amount as BigDecimal
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Multiplies by a rate and rounds half-up to the given scale,
+     * like {@code toBigDecimal().multiply(rate.toBigDecimal()).setScale(targetScale, HALF_UP)}.
+     *
+     * @param rate        conversion rate
+     * @param targetScale scale of the result, 0 to 18
+     * @return converted price
+     */
+    public Price convert(Price rate, int targetScale) {
+        int productScale = scale + rate.scale;
+        try {
+            long product = Math.multiplyExact(unscaled, rate.unscaled);
+            if (productScale <= targetScale) {
+                return new Price(Math.multiplyExact(product, POWERS_OF_TEN[targetScale - productScale]), targetScale);
+            }
+            if (productScale > MAX_SCALE) {
+                return convertExactly(rate, targetScale);
+            }
+            long divisor = POWERS_OF_TEN[productScale - targetScale];
+            long quotient = product / divisor;
+            long remainder = Math.abs(product % divisor);
+            if (remainder >= divisor - remainder) {
+                quotient += product < 0 ? -1 : 1;
+            }
+            return new Price(quotient, targetScale);
+        } catch (ArithmeticException overflow) {
+            return convertExactly(rate, targetScale);
+        }
+    }
+
+    /**
+     * Indicates whether {@link BigDecimal#toString()} renders this amount without an exponent,
+     * which holds for every amount with at most six leading zeros after the decimal point.
+     *
+     * @return true if {@link #writeTo(char[], int)} produces the same text as {@code BigDecimal}
+     */
+    public boolean isPlain() {
+        return digitCount(unscaled) - 1 - scale >= -6;
+    }
+
+    /**
+     * Writes the amount in plain decimal notation into a buffer.
+     * For {@linkplain #isPlain() plain} amounts the text equals {@link BigDecimal#toString()}.
+     *
+     * @param buffer buffer with room for at least {@link #MAX_CHARS} characters from {@code offset}
+     * @param offset index of the first character to write
+     * @return number of characters written
+     */
+    public int writeTo(char[] buffer, int offset) {
+        int pos = offset;
+        // Work on the negated magnitude, so Long.MIN_VALUE needs no special case
+        long negated = unscaled;
+        if (negated < 0) {
+            buffer[pos++] = '-';
+        } else {
+            negated = -negated;
+        }
+        int total = Math.max(digitCount(negated), scale + 1);
+        int end = pos + total + (scale > 0 ? 1 : 0);
+        int i = end;
+        for (int d = 0; d < total; d++) {
+            if (scale > 0 && d == scale) {
+                buffer[--i] = '.';
+            }
+            buffer[--i] = (char) ('0' - negated % 10);
+            negated /= 10;
+        }
+        return end - offset;
+    }
+
+    @Override
+    public String toString() {
+        if (!isPlain()) return toBigDecimal().toString();
+        char[] buffer = new char[MAX_CHARS];
+        return new String(buffer, 0, writeTo(buffer, 0));
+    }
+
+    private Price convertExactly(Price rate, int targetScale) {
+        return of(toBigDecimal().multiply(rate.toBigDecimal()).setScale(targetScale, RoundingMode.HALF_UP));
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.productapi.dto;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteCapability;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@link Price} as a JSON number, with the same text Jackson produces
+ * for the equivalent {@link java.math.BigDecimal}.
+ *
+ * <p>Digits are written into a per-thread scratch buffer and handed to the generator
+ * directly, so no intermediate {@code BigDecimal} or {@code String} is created.
+ * Binary formats such as CBOR and Smile cannot carry pre-formatted numbers, so they
+ * get the {@code BigDecimal} and encode it natively.</p>
+ */
+public class PriceSerializer extends StdSerializer<Price> {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[Price.MAX_CHARS]);
+
+    public PriceSerializer() {
+        super(Price.class);
+    }
+
+    @Override
+    public void serialize(Price value, JsonGenerator gen, SerializationContext ctxt) {
+        if (value.scale() == 0) {
+            gen.writeNumber(value.unscaled());
+        } else if (value.isPlain() && gen.has(StreamWriteCapability.CAN_WRITE_FORMATTED_NUMBERS)) {
+            char[] buffer = BUFFER.get();
+            gen.writeNumber(buffer, 0, value.writeTo(buffer, 0));
+        } else {
+            gen.writeNumber(value.toBigDecimal());
+        }
+    }
+}
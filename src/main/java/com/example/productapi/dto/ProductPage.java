@@ -0,0 +1,124 @@
+package com.example.productapi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A single page of products from a keyset-paginated search.
+ *
+ * <p>The cursor is an opaque token; clients pass it back as {@code after}
+ * to fetch the next page. It is {@code null} on the last page. Full-text results
+ * are ranked by relevance, so their cursor carries an offset instead of an id.
+ * Prefix searches are ordered by the matched lookup column and id, so their cursor
+ * carries both.</p>
+ *
+ * @param items      Products on this page, ordered by id, by lookup column and id, or by relevance
+ * @param nextCursor Cursor for the next page, or {@code null} if there is none
+ */
+public record ProductPage(
+        List<ProductResponse> items,
+        String nextCursor
+) {
+
+    private static final String PREFIX = "id:";
+    private static final String OFFSET_PREFIX = "offset:";
+    private static final String KEY_PREFIX = "key:";
+
+    /**
+     * Position of the last product on a page ordered by a lookup column and id.
+     *
+     * @param key lookup column value of the last product
+     * @param id  id of the last product
+     */
+    public record KeyCursor(String key, long id) {
+    }
+
+    /**
+     * Encodes the id of the last returned product as an opaque cursor.
+     *
+     * @param lastId id of the last product on the page
+     * @return URL-safe cursor token
+     */
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(long)}.
+     *
+     * @param cursor cursor token, may be {@code null}
+     * @return the id to continue after, or 0 when no cursor is given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static long decodeCursor(String cursor) {
+        return decode(cursor, PREFIX);
+    }
+
+    /**
+     * Encodes the number of results already returned as an opaque cursor.
+     *
+     * @param offset number of results on this and previous pages
+     * @return URL-safe cursor token
+     */
+    public static String encodeOffsetCursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((OFFSET_PREFIX + offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeOffsetCursor(int)}.
+     *
+     * @param cursor cursor token, may be {@code null}
+     * @return the number of results to skip, or 0 when no cursor is given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static int decodeOffsetCursor(String cursor) {
+        long offset = decode(cursor, OFFSET_PREFIX);
+        if (offset < 0 || offset > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid cursor");
+        return (int) offset;
+    }
+
+    /**
+     * Encodes the lookup value and id of the last returned product as an opaque cursor.
+     *
+     * @param key lookup column value of the last product on the page
+     * @param id  id of the last product on the page
+     * @return URL-safe cursor token
+     */
+    public static String encodeKeyCursor(String key, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((KEY_PREFIX + id + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeKeyCursor(String, long)}.
+     *
+     * @param cursor cursor token, may be {@code null}
+     * @return the position to continue after, or {@code null} when no cursor is given
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static KeyCursor decodeKeyCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':', KEY_PREFIX.length());
+            if (!raw.startsWith(KEY_PREFIX) || sep < 0) throw new IllegalArgumentException("Invalid cursor");
+            return new KeyCursor(raw.substring(sep + 1), Long.parseLong(raw.substring(KEY_PREFIX.length(), sep)));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    private static long decode(String cursor, String prefix) {
+        if (cursor == null || cursor.isEmpty()) return 0L;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(prefix)) throw new IllegalArgumentException("Invalid cursor");
+            return Long.parseLong(raw.substring(prefix.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.productapi.dto;
+
+/**
+ * Rating aggregates of a single product.
+ *
+ * @param id          Product ID
+ * @param name        Product name
+ * @param ratingSum   Sum of all review ratings
+ * @param ratingCount Number of reviews
+ */
+public record ProductRating(
+        Long id,
+        String name,
+        long ratingSum,
+        long ratingCount
+) {
+
+    /**
+     * Returns the average rating, or 0 if the product has no reviews.
+     *
+     * @return average rating
+     */
+    public double averageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+}
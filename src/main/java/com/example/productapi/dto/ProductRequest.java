@@ -2,6 +2,7 @@ package com.example.productapi.dto;
 
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -25,10 +26,13 @@ public class ProductRequest {
     private String code;
 
     @NotBlank
+    @Size(max = 255)
     private String name;
 
+    @NotNull
     @DecimalMin(value = "0.0")
     private BigDecimal priceEur;
 
+    @Size(max = 255)
     private String description;
 }
@@ -1,22 +1,55 @@
 package com.example.productapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 
 /**
  * Response DTO representing product details, including EUR and USD prices.
  *
+ * <p>Prices are held as {@link Price} values, which serialize to the same JSON
+ * numbers as {@code BigDecimal} without allocating on the way out.</p>
+ *
+ * <p>When a currency is requested, {@code currency} and {@code price} carry the
+ * EUR price converted with the current HNB rate; otherwise both are omitted.</p>
+ *
  * @param id          Product ID
  * @param code        Unique product code
  * @param name        Product name
  * @param priceEur    Price in EUR
  * @param priceUsd    Price converted to USD
  * @param description Optional product description
+ * @param currency    Requested currency (ISO 4217), if any
+ * @param price       Price in the requested currency, if any
  */
 public record ProductResponse(
         Long id,
         String code,
         String name,
-        BigDecimal priceEur,
-        BigDecimal priceUsd,
-        String description
-) { }
+        Price priceEur,
+        Price priceUsd,
+        String description,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String currency,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Price price
+) {
+
+    public ProductResponse(Long id, String code, String name, Price priceEur, Price priceUsd, String description) {
+        this(id, code, name, priceEur, priceUsd, description, null, null);
+    }
+
+    public ProductResponse(Long id, String code, String name, BigDecimal priceEur, BigDecimal priceUsd,
+                           String description) {
+        this(id, code, name, Price.of(priceEur), Price.of(priceUsd), description);
+    }
+
+    /**
+     * Returns a copy carrying the price in another currency.
+     *
+     * @param currency ISO 4217 currency code
+     * @param price    price in that currency
+     * @return product response with the converted price
+     */
+    public ProductResponse withPrice(String currency, Price price) {
+        return new ProductResponse(id, code, name, priceEur, priceUsd, description, currency, price);
+    }
+}
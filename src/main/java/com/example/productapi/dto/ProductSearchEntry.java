@@ -0,0 +1,15 @@
+package com.example.productapi.dto;
+
+/**
+ * Lightweight projection of the searchable product fields,
+ * used to (re)build in-memory search structures.
+ *
+ * @param id   Product ID
+ * @param code Unique product code
+ * @param name Product name
+ */
+public record ProductSearchEntry(
+        Long id,
+        String code,
+        String name
+) { }
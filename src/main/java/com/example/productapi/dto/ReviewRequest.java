@@ -0,0 +1,34 @@
+package com.example.productapi.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Request DTO for adding a review to a product.
+ * Includes the reviewer's name, optional text, and a rating between 1 and 5.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ReviewRequest {
+
+    @NotBlank
+    @Size(max = 255)
+    private String reviewer;
+
+    @Size(max = 255)
+    private String text;
+
+    @NotNull
+    @Min(1)
+    @Max(5)
+    private Integer rating;
+}
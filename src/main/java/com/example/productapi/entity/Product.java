@@ -2,9 +2,14 @@ package com.example.productapi.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 /**
  * Represents a product in the catalog.
  *
@@ -15,9 +20,29 @@ import java.util.List;
  * <p>The product code is unique and acts as a business identifier.</p>
  *
  * <p>Reviews are cascaded and removed automatically when detached from the product.</p>
+ *
+ * <p>Rating aggregates are updated on the managed entity while its row is locked,
+ * and dynamic updates write back only the changed columns.</p>
+ *
+ * <p>Lower-cased copies of the code and name are kept in indexed columns, so
+ * case-insensitive prefix searches are index range scans instead of table scans.</p>
+ *
+ * <p>Products are held in the second-level cache. Changes made through managed
+ * entities update only the cache entries of those products. Bulk update statements
+ * (rating backfill, repricing) cannot tell which rows they touched, so each one
+ * invalidates the whole product region and the query cache; they are kept to batch jobs.</p>
  */
 @Entity
-@Table(name = "product", uniqueConstraints = @UniqueConstraint(columnNames = "code"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
+@Table(name = "product",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_code", columnNames = "code"),
+        indexes = {
+                @Index(name = "idx_product_rating_average", columnList = "rating_average desc, rating_count desc"),
+                @Index(name = "idx_product_code_lc", columnList = "code_lc, id"),
+                @Index(name = "idx_product_name_lc", columnList = "name_lc, id")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,9 +54,11 @@ public class Product {
 
     /**
      * Primary key for the product.
+     * Drawn from a pooled sequence so inserts can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     @Setter(AccessLevel.NONE)
     private Long id;
@@ -39,7 +66,7 @@ public class Product {
     /**
      * Unique business code (15 characters).
      */
-    @Column(length = 15, nullable = false, unique = true)
+    @Column(length = 15, nullable = false)
     private String code;
 
     /**
@@ -48,6 +75,20 @@ public class Product {
     @Column(nullable = false)
     private String name;
 
+    /**
+     * Lower-cased code, maintained on write for case-insensitive lookups.
+     */
+    @Column(name = "code_lc", length = 15, nullable = false)
+    @Setter(AccessLevel.NONE)
+    private String codeLc;
+
+    /**
+     * Lower-cased name, maintained on write for case-insensitive lookups.
+     */
+    @Column(name = "name_lc", nullable = false)
+    @Setter(AccessLevel.NONE)
+    private String nameLc;
+
     /**
      * Price of the product in EUR.
      */
@@ -63,6 +104,28 @@ public class Product {
      */
     private String description;
 
+    /**
+     * Sum of all review ratings, maintained incrementally as reviews are added.
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private long ratingSum = 0L;
+
+    /**
+     * Number of reviews, maintained incrementally as reviews are added.
+     */
+    @Column(name = "rating_count", nullable = false)
+    @Builder.Default
+    private long ratingCount = 0L;
+
+    /**
+     * Average review rating, maintained together with the sum and count
+     * so popular products can be read in index order.
+     */
+    @Column(name = "rating_average", nullable = false)
+    @Builder.Default
+    private double ratingAverage = 0.0;
+
     /**
      * List of reviews associated with the product.
      * <p>
@@ -73,4 +136,26 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Review> reviews = new ArrayList<>();
+
+    /**
+     * Adds review ratings to the aggregates and recomputes the average.
+     *
+     * @param sum   sum of the added ratings
+     * @param count number of added ratings
+     */
+    public void addRatings(long sum, long count) {
+        ratingSum += sum;
+        ratingCount += count;
+        ratingAverage = ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    /**
+     * Refreshes the lower-cased lookup columns from the code and name.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        codeLc = code == null ? null : code.toLowerCase(Locale.ROOT);
+        nameLc = name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
 }
@@ -5,14 +5,20 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents a user review for a product.
  *
  * <p>Each review includes the reviewer's name, a text comment,
  * and a rating between 1 and 5. Reviews belong to a single product.</p>
+ *
+ * <p>Reviews are held in the second-level cache.</p>
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "review")
 @Getter
 @Setter
@@ -25,9 +31,11 @@ public class Review {
 
     /**
      * Primary key for the review.
+     * Drawn from a pooled sequence so inserts can be batched.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "review_seq")
+    @SequenceGenerator(name = "review_seq", sequenceName = "review_seq", allocationSize = 50)
     private Long id;
 
     /**
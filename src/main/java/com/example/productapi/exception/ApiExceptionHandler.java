@@ -1,5 +1,6 @@
 package com.example.productapi.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -29,6 +30,30 @@ public class ApiExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
     }
 
+    /**
+     * Handles references to products that do not exist.
+     *
+     * @param ex the thrown ProductNotFoundException
+     * @return 404 Not Found with a simple error message
+     */
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<?> handleNotFound(ProductNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    }
+
+    /**
+     * Handles requests rejected because a bounded queue is full.
+     *
+     * @param ex the thrown TooManyRequestsException
+     * @return 429 Too Many Requests with a Retry-After header
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     /**
      * Handles validation errors triggered by @Valid or @Validated.
      *
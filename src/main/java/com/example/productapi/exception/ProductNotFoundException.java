@@ -0,0 +1,11 @@
+package com.example.productapi.exception;
+
+/**
+ * Thrown when a product referenced by its code does not exist.
+ */
+public class ProductNotFoundException extends RuntimeException {
+
+    public ProductNotFoundException(String code) {
+        super("Product not found: " + code);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.productapi.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request cannot be accepted because a bounded resource is full.
+ * Mapped to 429 Too Many Requests with a {@code Retry-After} header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns how long the client should wait before retrying.
+     *
+     * @return suggested retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -1,19 +1,45 @@
 package com.example.productapi.repository;
 
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.dto.ProductSearchEntry;
 import com.example.productapi.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link Product} entities.
  *
  * <p>Provides basic CRUD operations through {@link JpaRepository}
  * and includes custom search queries for filtering products
- * by code and/or name (case-insensitive).</p>
+ * by code and/or name (case-insensitive). Search queries are keyset-paginated
+ * on the product id.</p>
+ *
+ * <p>Case-insensitive filters compare against the lower-cased {@code codeLc} and
+ * {@code nameLc} columns. Prefix filters are written as ranges on those columns,
+ * which resolve to range scans of the {@code (code_lc, id)} and {@code (name_lc, id)}
+ * indexes, keyset-paginated on the lookup column and id.</p>
+ *
+ * <p>Search queries project straight into {@link ProductResponse} records, so no managed
+ * entities, dirty-checking snapshots or collection proxies are created on the read path.</p>
+ *
+ * <p>Lookups by code and the search queries use the Hibernate query cache.
+ * Cached results are invalidated whenever the product table is written.</p>
  */
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
@@ -23,46 +49,343 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @param code the product code
      * @return an Optional containing the product if found
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findByCode(String code);
 
+    /**
+     * Returns the product with the given code as a response.
+     *
+     * @param code the product code
+     * @return the product, if found
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.code = :code
+           """)
+    Optional<ProductResponse> findResponseByCode(@Param("code") String code);
+
+    /**
+     * Returns which of the given codes already exist.
+     *
+     * @param codes product codes to check
+     * @return the subset of codes that are already used
+     */
+    @Query("select p.code from Product p where p.code in :codes")
+    Set<String> findExistingCodes(@Param("codes") Collection<String> codes);
+
     /**
      * Searches for products where both the code and name
      * contain the given text (case-insensitive).
      *
      * @param code partial or full code text
      * @param name partial or full name text
-     * @return matching products
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of products to return
+     * @return matching products ordered by id
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
     @Query("""
-           select p from Product p
-           where lower(p.code) like lower(concat('%', :code, '%'))
-             and lower(p.name) like lower(concat('%', :name, '%'))
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.codeLc like lower(concat('%', :code, '%'))
+             and p.nameLc like lower(concat('%', :name, '%'))
+             and p.id > :after
+           order by p.id
            """)
-    List<Product> findByCodeContainsIgnoreCaseAndNameContainsIgnoreCase(
+    List<ProductResponse> findByCodeContainsIgnoreCaseAndNameContainsIgnoreCase(
             @Param("code") String code,
-            @Param("name") String name);
+            @Param("name") String name,
+            @Param("after") Long after,
+            Limit limit);
 
     /**
      * Searches for products where the code contains the given text (case-insensitive).
      *
      * @param code partial or full code text
-     * @return matching products
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of products to return
+     * @return matching products ordered by id
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
     @Query("""
-           select p from Product p
-           where lower(p.code) like lower(concat('%', :code, '%'))
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.codeLc like lower(concat('%', :code, '%'))
+             and p.id > :after
+           order by p.id
            """)
-    List<Product> findByCodeContainsIgnoreCase(@Param("code") String code);
+    List<ProductResponse> findByCodeContainsIgnoreCase(@Param("code") String code, @Param("after") Long after, Limit limit);
 
     /**
      * Searches for products where the name contains the given text (case-insensitive).
      *
      * @param name partial or full name text
-     * @return matching products
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of products to return
+     * @return matching products ordered by id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.nameLc like lower(concat('%', :name, '%'))
+             and p.id > :after
+           order by p.id
+           """)
+    List<ProductResponse> findByNameContainsIgnoreCase(@Param("name") String name, @Param("after") Long after, Limit limit);
+
+    /**
+     * Returns products with an id greater than {@code after}, ordered by id.
+     *
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of products to return
+     * @return products ordered by id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.id > :after
+           order by p.id
+           """)
+    List<ProductResponse> findByIdGreaterThanOrderById(@Param("after") Long after, Limit limit);
+
+    /**
+     * Returns products whose lower-cased code lies in {@code [from, to)}, i.e. starts with a
+     * given prefix when {@code to} is the prefix's upper bound, ordered by lower-cased code and id.
+     * Rows come straight off the {@code (code_lc, id)} index starting at {@code from}, so each
+     * page or batch resumes the range scan where the previous one stopped.
+     *
+     * @param from  lower-cased prefix, or the lower-cased code of the last row already returned
+     * @param to    exclusive upper bound of the prefix range
+     * @param after id of the last row already returned, or 0 when starting at the prefix
+     * @param limit maximum number of products to return
+     * @return matching products ordered by lower-cased code and id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.codeLc >= :from and p.codeLc < :to
+             and (p.codeLc > :from or p.id > :after)
+           order by p.codeLc, p.id
+           """)
+    List<ProductResponse> findByCodeRange(@Param("from") String from, @Param("to") String to,
+                                          @Param("after") Long after, Limit limit);
+
+    /**
+     * Returns products whose lower-cased name lies in {@code [from, to)}, i.e. starts with a
+     * given prefix when {@code to} is the prefix's upper bound, ordered by lower-cased name and id.
+     * Rows come straight off the {@code (name_lc, id)} index starting at {@code from}, so each
+     * page or batch resumes the range scan where the previous one stopped.
+     *
+     * @param from  lower-cased prefix, or the lower-cased name of the last row already returned
+     * @param to    exclusive upper bound of the prefix range
+     * @param after id of the last row already returned, or 0 when starting at the prefix
+     * @param limit maximum number of products to return
+     * @return matching products ordered by lower-cased name and id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.nameLc >= :from and p.nameLc < :to
+             and (p.nameLc > :from or p.id > :after)
+           order by p.nameLc, p.id
+           """)
+    List<ProductResponse> findByNameRange(@Param("from") String from, @Param("to") String to,
+                                          @Param("after") Long after, Limit limit);
+
+    /**
+     * Returns the products with the given ids, ordered by id.
+     *
+     * @param ids product ids
+     * @return products ordered by id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.id in :ids
+           order by p.id
+           """)
+    List<ProductResponse> findResponsesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams all products matching the optional code and name filters (case-insensitive),
+     * ordered by id. Must be consumed inside a transaction and closed by the caller.
+     * Rows are projected straight into responses, so nothing is held in the persistence context
+     * or the second-level cache.
+     *
+     * @param code optional partial code text
+     * @param name optional partial name text
+     * @return stream of matching products
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where (:code is null or p.codeLc like lower(concat('%', :code, '%')))
+             and (:name is null or p.nameLc like lower(concat('%', :name, '%')))
+           order by p.id
+           """)
+    Stream<ProductResponse> streamMatching(@Param("code") String code, @Param("name") String name);
+
+    /**
+     * Streams all products with an id greater than {@code after}, ordered by id.
+     * Must be consumed inside a transaction and closed by the caller.
+     *
+     * @param after exclusive lower bound for the product id
+     * @return stream of products
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+           select new com.example.productapi.dto.ProductResponse(p.id, p.code, p.name, p.priceEur, p.priceUsd, p.description)
+           from Product p
+           where p.id > :after
+           order by p.id
+           """)
+    Stream<ProductResponse> streamAfter(@Param("after") Long after);
+
+    /**
+     * Counts the products with an id up to {@code id}.
+     *
+     * @param id inclusive upper bound for the product id
+     * @return number of products
+     */
+    long countByIdLessThanEqual(Long id);
+
+    /**
+     * Returns the searchable fields of products with an id greater than {@code after},
+     * ordered by id. Used to page through the catalog when building in-memory indexes.
+     *
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of entries to return
+     * @return search entries ordered by id
+     */
+    @Query("""
+           select new com.example.productapi.dto.ProductSearchEntry(p.id, p.code, p.name)
+           from Product p
+           where p.id > :after
+           order by p.id
+           """)
+    List<ProductSearchEntry> findSearchEntriesAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Loads the given products and locks their rows until the transaction ends,
+     * so concurrent review writers add their ratings one after another.
+     * Rows are locked in id order.
+     *
+     * @param ids product ids
+     * @return managed products ordered by id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id in :ids order by p.id")
+    List<Product> findAllForRatingUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns the rating aggregates of reviewed products with an id greater than {@code after},
+     * ordered by id.
+     *
+     * @param after exclusive lower bound for the product id
+     * @param limit maximum number of entries to return
+     * @return rating aggregates ordered by product id
+     */
+    @Query("""
+           select new com.example.productapi.dto.ProductRating(p.id, p.name, p.ratingSum, p.ratingCount)
+           from Product p
+           where p.ratingCount > 0 and p.id > :after
+           order by p.id
+           """)
+    List<ProductRating> findRatingsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Returns the highest rated products with at least {@code minReviews} reviews,
+     * highest average first. Reads the rating average index, so only
+     * {@code limit} rows are produced by the database.
+     *
+     * @param minReviews minimum number of reviews, at least 1
+     * @param limit maximum number of products to return
+     * @return rating aggregates, highest average first
      */
     @Query("""
-           select p from Product p
-           where lower(p.name) like lower(concat('%', :name, '%'))
+           select new com.example.productapi.dto.ProductRating(p.id, p.name, p.ratingSum, p.ratingCount)
+           from Product p
+           where p.ratingCount >= :minReviews
+           order by p.ratingAverage desc, p.ratingCount desc, p.id
            """)
-    List<Product> findByNameContainsIgnoreCase(@Param("name") String name);
+    List<ProductRating> findTopRated(@Param("minReviews") long minReviews, Limit limit);
+
+    /**
+     * Recomputes the rating aggregates of products in an id range from the review table.
+     *
+     * @param from inclusive lower bound for the product id
+     * @param to   inclusive upper bound for the product id
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("""
+           update Product p
+           set p.ratingSum = coalesce((select sum(r.rating) from Review r where r.product = p), 0),
+               p.ratingCount = (select count(r) from Review r where r.product = p),
+               p.ratingAverage = coalesce((select avg(r.rating) from Review r where r.product = p), 0.0)
+           where p.id between :from and :to
+           """)
+    int recomputeRatings(@Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * Recomputes the stored USD price of products in an id range from their EUR price.
+     * Rows whose USD price is already correct are left untouched.
+     *
+     * @param rate EUR→USD rate
+     * @param from inclusive lower bound for the product id
+     * @param to   inclusive upper bound for the product id
+     * @return number of updated rows
+     */
+    @Modifying
+    @Query("""
+           update Product p
+           set p.priceUsd = round(p.priceEur * :rate, 2)
+           where p.id between :from and :to
+             and p.priceEur is not null
+             and (p.priceUsd is null or p.priceUsd <> round(p.priceEur * :rate, 2))
+           """)
+    int repriceUsd(@Param("rate") BigDecimal rate, @Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * Returns the highest product id.
+     *
+     * @return the highest id, or {@code null} if there are no products
+     */
+    @Query("select max(p.id) from Product p")
+    Long findMaxId();
 }
@@ -0,0 +1,110 @@
+package com.example.productapi.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings.
+ *
+ * <p>{@link #mightContain(String)} never returns {@code false} for a string that was
+ * {@link #put(String) put}; it returns {@code true} for an absent string with roughly the
+ * false-positive rate the filter was sized for, as long as no more than the expected
+ * number of strings are added.</p>
+ *
+ * <p>Bit positions are derived from two 64-bit hashes of the string by double hashing.
+ * Bits live in an {@link AtomicLongArray}, so concurrent puts and lookups need no lock.</p>
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+
+    /**
+     * Creates a filter sized for the expected number of strings and false-positive rate.
+     *
+     * @param expectedInsertions number of strings the filter is sized for
+     * @param falsePositiveRate  target false-positive rate, between 0 and 1 (exclusive)
+     * @throws IllegalArgumentException if an argument is out of range
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.words = new AtomicLongArray(words);
+        this.bits = (long) words << 6;
+        this.hashes = (int) Math.max(1, Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.capacity = expectedInsertions;
+    }
+
+    /**
+     * Adds a string to the filter.
+     *
+     * @param value string to add
+     */
+    public void put(String value) {
+        long h1 = hash(value, 0xcbf29ce484222325L);
+        long h2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a string may have been added.
+     *
+     * @param value string to look up
+     * @return {@code false} if the string was definitely never added
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value, 0xcbf29ce484222325L);
+        long h2 = hash(value, 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of strings the filter was sized for.
+     *
+     * @return expected insertions
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the size of the bit array.
+     *
+     * @return number of bits
+     */
+    public long bitSize() {
+        return bits;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, finished with the SplitMix64 mixer.
+     */
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductRating;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of the product catalog on local disk, read back memory-mapped.
+ *
+ * <p>A snapshot holds the searchable fields of every product, the rating aggregates of
+ * reviewed products, and the ids of the products in the lookup near-cache when it was
+ * written. Prices are not stored: they change with the exchange rate, so cached products
+ * are reloaded from the database by id.</p>
+ *
+ * <p>Layout, big-endian: a fixed header, the near-cache ids, product entries in id order,
+ * then rating entries. Codes that pack into a {@link ProductCode} take 16 bytes, strings
+ * are length-prefixed UTF-8. The header carries a CRC-32 of everything after it, so a
+ * truncated or corrupt file is rejected as a whole. Files are written to a temporary
+ * sibling and moved into place, so readers never see a partial snapshot.</p>
+ */
+public final class CatalogSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x50534e50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 72;
+    private static final long CRC_CHUNK = 1 << 30;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment data;
+    private final long writtenAt;
+    private final long maxId;
+    private final ProductCode maxIdCode;
+    private final int productCount;
+    private final int ratingCount;
+    private final int hotCount;
+    private final long ratingsOffset;
+
+    private CatalogSnapshot(Arena arena, MemorySegment data) {
+        this.arena = arena;
+        this.data = data;
+        this.writtenAt = data.get(LONG, 8);
+        this.maxId = data.get(LONG, 16);
+        long hi = data.get(LONG, 24);
+        this.maxIdCode = hi == 0 ? null : new ProductCode(hi, data.get(LONG, 32));
+        this.productCount = data.get(INT, 40);
+        this.ratingCount = data.get(INT, 44);
+        this.hotCount = data.get(INT, 48);
+        this.ratingsOffset = data.get(LONG, 52);
+    }
+
+    /**
+     * Searchable fields of a product.
+     *
+     * @param id          product id
+     * @param code        product code
+     * @param name        product name
+     * @param description optional description
+     */
+    public record Entry(long id, String code, String name, String description) { }
+
+    /**
+     * Memory-maps and verifies a snapshot file. The mapping is released by {@link #close()}.
+     *
+     * @param file snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, or is not a complete snapshot of this version
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        Arena arena = Arena.ofConfined();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException("Snapshot " + file + " is truncated");
+            MemorySegment data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            if (data.get(INT, 0) != MAGIC || data.get(INT, 4) != VERSION) {
+                throw new IOException("Snapshot " + file + " has an unknown format");
+            }
+            long bodyBytes = data.get(LONG, 60);
+            if (bodyBytes != size - HEADER_BYTES) throw new IOException("Snapshot " + file + " is truncated");
+            CRC32 crc = new CRC32();
+            for (long offset = HEADER_BYTES; offset < size; offset += CRC_CHUNK) {
+                crc.update(data.asSlice(offset, Math.min(CRC_CHUNK, size - offset)).asByteBuffer());
+            }
+            if ((int) crc.getValue() != data.get(INT, 68)) {
+                throw new IOException("Snapshot " + file + " is corrupt");
+            }
+            return new CatalogSnapshot(arena, data);
+        } catch (IOException | RuntimeException ex) {
+            arena.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Starts writing a snapshot. The file is replaced only by {@link Writer#commit()};
+     * closing an uncommitted writer discards what was written.
+     *
+     * @param file   snapshot file to replace
+     * @param hotIds ids of the products to reload into the near-cache, ascending
+     * @return writer accepting all products, then all ratings, in id order
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static Writer create(Path file, long[] hotIds) throws IOException {
+        return new Writer(file, hotIds);
+    }
+
+    /**
+     * Returns when the snapshot was written.
+     *
+     * @return epoch milliseconds
+     */
+    public long writtenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * Returns the highest product id in the snapshot.
+     *
+     * @return highest id, or 0 if the snapshot holds no products
+     */
+    public long maxId() {
+        return maxId;
+    }
+
+    /**
+     * Returns the code of the product with the highest id.
+     *
+     * @return packed code, or {@code null} if there are no products or the code does not pack
+     */
+    public ProductCode maxIdCode() {
+        return maxIdCode;
+    }
+
+    /**
+     * Returns the number of products in the snapshot.
+     *
+     * @return number of product entries
+     */
+    public int productCount() {
+        return productCount;
+    }
+
+    /**
+     * Returns the number of reviewed products in the snapshot.
+     *
+     * @return number of rating entries
+     */
+    public int ratingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Returns the ids of the products that were in the near-cache.
+     *
+     * @return ascending product ids
+     */
+    public long[] hotIds() {
+        long[] ids = new long[hotCount];
+        MemorySegment.copy(data, LONG, HEADER_BYTES, ids, 0, hotCount);
+        return ids;
+    }
+
+    /**
+     * Returns the product entries, decoded lazily from the mapped file.
+     *
+     * @return entries in id order
+     */
+    public Iterable<Entry> products() {
+        return () -> new Cursor<>(HEADER_BYTES + 8L * hotCount, productCount, c ->
+                new Entry(c.readLong(), c.readCode(), c.readString(), c.readString()));
+    }
+
+    /**
+     * Returns the rating aggregates, decoded lazily from the mapped file.
+     *
+     * @return ratings in product id order
+     */
+    public Iterable<ProductRating> ratings() {
+        return () -> new Cursor<>(ratingsOffset, ratingCount, c ->
+                new ProductRating(c.readLong(), c.readString(), c.readLong(), c.readLong()));
+    }
+
+    /**
+     * Unmaps the file. Iterators must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private final class Cursor<T> implements Iterator<T> {
+        private final Function<Cursor<T>, T> decoder;
+        private long position;
+        private int remaining;
+
+        Cursor(long position, int count, Function<Cursor<T>, T> decoder) {
+            this.position = position;
+            this.remaining = count;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public T next() {
+            if (remaining == 0) throw new NoSuchElementException();
+            remaining--;
+            return decoder.apply(this);
+        }
+
+        long readLong() {
+            long value = data.get(LONG, position);
+            position += 8;
+            return value;
+        }
+
+        String readCode() {
+            long hi = readLong();
+            if (hi == 0) return readString();
+            return new ProductCode(hi, readLong()).toString();
+        }
+
+        String readString() {
+            int length = data.get(INT, position);
+            position += 4;
+            if (length < 0) return null;
+            byte[] bytes = data.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Streams a snapshot into a temporary file next to the target.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private final int hotCount;
+        private long maxId;
+        private ProductCode maxIdCode;
+        private int productCount;
+        private int ratingCount;
+        private long ratingsOffset = -1;
+        private boolean committed;
+
+        private Writer(Path file, long[] hotIds) throws IOException {
+            this.file = file;
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            this.temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            channel.position(HEADER_BYTES);
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            this.hotCount = hotIds.length;
+            for (long id : hotIds) {
+                out.writeLong(id);
+            }
+        }
+
+        /**
+         * Appends a product. Products must be appended in ascending id order, before any rating.
+         *
+         * @param id          product id
+         * @param code        product code
+         * @param name        product name
+         * @param description optional description
+         * @throws IOException if writing fails
+         */
+        public void product(long id, String code, String name, String description) throws IOException {
+            if (ratingsOffset >= 0) throw new IllegalStateException("Products must be written before ratings");
+            out.writeLong(id);
+            ProductCode packed = ProductCode.of(code);
+            if (packed != null) {
+                out.writeLong(packed.hi());
+                out.writeLong(packed.lo());
+            } else {
+                out.writeLong(0);
+                writeString(code);
+            }
+            writeString(name);
+            writeString(description);
+            maxId = id;
+            maxIdCode = packed;
+            productCount++;
+        }
+
+        /**
+         * Appends the rating aggregates of a product.
+         *
+         * @param rating rating aggregates
+         * @throws IOException if writing fails
+         */
+        public void rating(ProductRating rating) throws IOException {
+            if (ratingsOffset < 0) {
+                out.flush();
+                ratingsOffset = channel.position();
+            }
+            out.writeLong(rating.id());
+            writeString(rating.name());
+            out.writeLong(rating.ratingSum());
+            out.writeLong(rating.ratingCount());
+            ratingCount++;
+        }
+
+        /**
+         * Completes the header, syncs the file and moves it over the target.
+         *
+         * @throws IOException if writing or moving fails
+         */
+        public void commit() throws IOException {
+            out.flush();
+            long bodyBytes = channel.position() - HEADER_BYTES;
+            if (ratingsOffset < 0) ratingsOffset = HEADER_BYTES + bodyBytes;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(maxId)
+                    .putLong(maxIdCode == null ? 0 : maxIdCode.hi())
+                    .putLong(maxIdCode == null ? 0 : maxIdCode.lo())
+                    .putInt(productCount)
+                    .putInt(ratingCount)
+                    .putInt(hotCount)
+                    .putLong(ratingsOffset)
+                    .putLong(bodyBytes)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Returns the number of products written so far.
+         *
+         * @return number of product entries
+         */
+        public int productCount() {
+            return productCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.ReadRouting;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the product catalog, bumped after every committed change
+ * to products or reviews. Used to derive ETags for catalog responses.
+ * A second counter, the product set version, ignores reviews and keys cached search pages.
+ *
+ * <p>The counter starts at the startup time in milliseconds, so versions
+ * handed out by a previous run of the application are never reused.</p>
+ */
+@Component
+public class CatalogVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong products = new AtomicLong(version.get());
+
+    /**
+     * Returns the current catalog version.
+     *
+     * @return current version
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Marks the catalog as changed.
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Marks product ratings as changed, which also changes the catalog.
+     */
+    public void bumpRatings() {
+        ReadRouting.ratingsChanged();
+        bump();
+    }
+
+    /**
+     * Returns the version of the product set, which changes only when products are
+     * created or their fields rewritten, not when reviews are added.
+     *
+     * @return current product set version
+     */
+    public long products() {
+        return products.get();
+    }
+
+    /**
+     * Marks products as created or rewritten, which also changes the catalog.
+     */
+    public void bumpProducts() {
+        ReadRouting.productsChanged();
+        products.incrementAndGet();
+        bump();
+    }
+
+    /**
+     * Returns a weak ETag for the current catalog version in the given representation.
+     * Weak, because the server still gzips the response, and a strong ETag would have
+     * to differ between the compressed and the uncompressed bytes.
+     *
+     * @param representation name of the response format, e.g. {@code json} or {@code cbor}
+     * @return ETag value including the {@code W/} prefix and quotes
+     */
+    public String etag(String representation) {
+        return "W/\"" + Long.toString(current(), 36) + "-" + representation + "\"";
+    }
+}
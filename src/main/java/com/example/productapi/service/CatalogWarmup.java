@@ -0,0 +1,210 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.ReadRouting;
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Fills the in-memory indexes, the popularity ranking and the lookup near-cache on startup,
+ * and keeps the {@link CatalogSnapshot} they are filled from up to date.
+ *
+ * <p>With {@code product.snapshot.path} set, a snapshot is written every
+ * {@code product.snapshot.interval} if the catalog has changed. On startup it is memory-mapped
+ * and loaded before the application reports that it accepts traffic: the product indexes are
+ * filled from it and then catch up with the products inserted since, the popularity ranking
+ * serves its rating aggregates while it is rebuilt from the database in the background, and
+ * the products that were in the near-cache are reloaded by id.</p>
+ *
+ * <p>All of this reads from the primary, so a lagging replica cannot leave products out
+ * of the indexes.</p>
+ *
+ * <p>Products are never deleted, so the snapshot is used only if the database still holds
+ * its last product and exactly as many products up to that id; otherwise, or without a
+ * snapshot, everything is built from the database.</p>
+ */
+@Slf4j
+@Component
+public class CatalogWarmup {
+
+    private static final int BATCH = 1_000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final ProductTextIndex textIndex;
+    private final ProductCodeFilter codeFilter;
+    private final ProductCodeIndex codeIndex;
+    private final PopularityRanking popularityRanking;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Path snapshotPath;
+    private long writtenVersion;
+
+    public CatalogWarmup(ProductRepository productRepository, ProductSearchIndex searchIndex,
+                         ProductTextIndex textIndex, ProductCodeFilter codeFilter, ProductCodeIndex codeIndex,
+                         PopularityRanking popularityRanking, CatalogVersion catalogVersion,
+                         CacheManager cacheManager, TransactionTemplate transactionTemplate,
+                         @Value("${product.snapshot.path:}") String snapshotPath) {
+        this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        this.textIndex = textIndex;
+        this.codeFilter = codeFilter;
+        this.codeIndex = codeIndex;
+        this.popularityRanking = popularityRanking;
+        this.catalogVersion = catalogVersion;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Loads the catalog from the snapshot and catches up with the database,
+     * or builds everything from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ReadRouting.onPrimary(() -> {
+            if (restore()) return;
+            searchIndex.rebuild();
+            textIndex.rebuild();
+            codeFilter.rebuild();
+            codeIndex.rebuild();
+            popularityRanking.rebuild();
+        });
+    }
+
+    /**
+     * Writes a new snapshot if the catalog has changed since the last one.
+     */
+    @Scheduled(initialDelayString = "${product.snapshot.interval:PT5M}",
+            fixedDelayString = "${product.snapshot.interval:PT5M}")
+    public void writeSnapshot() {
+        if (snapshotPath == null) return;
+        long version = catalogVersion.current();
+        if (version == writtenVersion) return;
+
+        long started = System.nanoTime();
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(snapshotPath, hotIds())) {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductResponse> rows = productRepository.streamAfter(0L)) {
+                    Iterator<ProductResponse> it = rows.iterator();
+                    while (it.hasNext()) {
+                        ProductResponse p = it.next();
+                        writer.product(p.id(), p.code(), p.name(), p.description());
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            long after = 0;
+            List<ProductRating> batch;
+            do {
+                batch = productRepository.findRatingsAfter(after, Limit.of(BATCH));
+                for (ProductRating rating : batch) {
+                    writer.rating(rating);
+                }
+                if (!batch.isEmpty()) {
+                    after = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == BATCH);
+            writer.commit();
+            writtenVersion = version;
+            log.info("Catalog snapshot with {} products written to {} in {} ms",
+                    writer.productCount(), snapshotPath, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | UncheckedIOException ex) {
+            log.warn("Writing catalog snapshot {} failed", snapshotPath, ex);
+        }
+    }
+
+    private boolean restore() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) return false;
+        long started = System.nanoTime();
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(snapshotPath)) {
+            if (!matchesDatabase(snapshot)) {
+                log.warn("Catalog snapshot {} does not match the database, building from the database", snapshotPath);
+                return false;
+            }
+            codeFilter.prepare(snapshot.productCount());
+            for (CatalogSnapshot.Entry e : snapshot.products()) {
+                searchIndex.add(e.id(), e.code(), e.name());
+                textIndex.add(e.id(), e.code(), e.name(), e.description());
+                codeFilter.add(e.code());
+                codeIndex.add(e.id(), e.code());
+            }
+            searchIndex.loadAfter(snapshot.maxId());
+            textIndex.loadAfter(snapshot.maxId());
+            codeFilter.loadAfter(snapshot.maxId());
+            codeIndex.loadAfter(snapshot.maxId());
+            popularityRanking.restore(snapshot.ratings());
+            int cached = warmNearCache(snapshot.hotIds());
+            log.info("Catalog restored from snapshot {} ({} products, {} ratings, {} cached) in {} ms",
+                    snapshotPath, snapshot.productCount(), snapshot.ratingCount(), cached,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException ex) {
+            log.warn("Cannot read catalog snapshot {}, building from the database", snapshotPath, ex);
+            return false;
+        }
+        Thread.ofVirtual().name("popularity-ranking-rebuild").start(() -> ReadRouting.onPrimary(() -> {
+            try {
+                popularityRanking.rebuild();
+                cacheManager.getCache(ProductService.POPULAR_CACHE).invalidate();
+            } catch (RuntimeException ex) {
+                log.error("Rebuilding the popularity ranking failed, serving the snapshot", ex);
+            }
+        }));
+        return true;
+    }
+
+    private boolean matchesDatabase(CatalogSnapshot snapshot) {
+        if (snapshot.productCount() == 0) return true;
+        List<ProductSearchEntry> last = productRepository.findSearchEntriesAfter(snapshot.maxId() - 1, Limit.of(1));
+        if (last.isEmpty() || last.get(0).id() != snapshot.maxId()) return false;
+        ProductCode code = snapshot.maxIdCode();
+        if (code != null && !code.equals(ProductCode.of(last.get(0).code()))) return false;
+        return productRepository.countByIdLessThanEqual(snapshot.maxId()) == snapshot.productCount();
+    }
+
+    private int warmNearCache(long[] ids) {
+        Cache cache = cacheManager.getCache(ProductService.PRODUCT_CACHE);
+        int cached = 0;
+        for (int from = 0; from < ids.length; from += BATCH) {
+            List<Long> batch = Arrays.stream(ids, from, Math.min(from + BATCH, ids.length)).boxed().toList();
+            for (ProductResponse p : productRepository.findResponsesByIds(batch)) {
+                cache.put(ProductCode.key(p.code()), p);
+                cached++;
+            }
+        }
+        return cached;
+    }
+
+    private long[] hotIds() {
+        Object nativeCache = cacheManager.getCache(ProductService.PRODUCT_CACHE).getNativeCache();
+        if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine)) return new long[0];
+        return caffeine.asMap().values().stream()
+                .filter(ProductResponse.class::isInstance)
+                .mapToLong(v -> ((ProductResponse) v).id())
+                .sorted()
+                .toArray();
+    }
+}
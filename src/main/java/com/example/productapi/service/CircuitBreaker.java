@@ -0,0 +1,53 @@
+package com.example.productapi.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * <p>After {@code failureThreshold} consecutive failures the circuit opens and
+ * {@link #allowRequest()} returns false until {@code openDuration} has passed.
+ * The first request after that is a trial: a success closes the circuit,
+ * a failure opens it again for another {@code openDuration}.</p>
+ */
+class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private int consecutiveFailures;
+    private Instant openUntil;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be at least 1");
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    synchronized boolean allowRequest() {
+        if (openUntil == null) return true;
+        if (clock.instant().isBefore(openUntil)) return false;
+        openUntil = null;
+        return true;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openUntil = null;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = clock.instant().plus(openDuration);
+        }
+    }
+
+    synchronized boolean isOpen() {
+        return openUntil != null && clock.instant().isBefore(openUntil);
+    }
+}
@@ -1,56 +1,207 @@
 package com.example.productapi.service;
 
 import com.example.productapi.dto.HnbRateResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Service for retrieving the EUR→USD exchange rate from the HNB v3 API.
- * Results are cached to avoid unnecessary external API calls.
+ * Service for retrieving EUR exchange rates from the HNB v3 API.
+ *
+ * <p>The full daily rate list is fetched in one call on a fixed schedule and
+ * held in an immutable {@link RateTable} that is swapped atomically, so callers
+ * always get the last known rates without waiting for HNB. When a refresh
+ * changes the rates, a {@link RateTableChangedEvent} is published. Requests use
+ * explicit connect and read timeouts, and a circuit breaker stops calling
+ * HNB for a while after repeated failures. Concurrent refreshes share one
+ * request and all receive its result.</p>
+ *
+ * <p>Fetch latency and outcome are recorded in the {@code hnb.fetch} timer,
+ * uses of the fallback rate in {@code hnb.rate.fallback}, and the breaker
+ * state in the {@code hnb.circuit.open} gauge.</p>
  */
 @Slf4j
 @Service
 public class HnbService {
 
-    private final RestTemplate restTemplate;
+    static final BigDecimal FALLBACK_RATE = BigDecimal.valueOf(1.08);
+    static final RateTable FALLBACK_TABLE = new RateTable(null, Map.of("USD", FALLBACK_RATE));
+
+    private final WebClient webClient;
     private final String apiUrl;
+    private final Duration readTimeout;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicReference<RateTable> rates = new AtomicReference<>();
+    private final AtomicReference<Mono<RateTable>> inFlight = new AtomicReference<>();
+    private final MeterRegistry meterRegistry;
+    private final Counter fallbackCounter;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public HnbService(@Value("${hnb.api-url}") String apiUrl) {
+    public HnbService(@Value("${hnb.api-url}") String apiUrl,
+                      @Value("${hnb.connect-timeout:PT2S}") Duration connectTimeout,
+                      @Value("${hnb.read-timeout:PT3S}") Duration readTimeout,
+                      @Value("${hnb.circuit-breaker.failure-threshold:3}") int failureThreshold,
+                      @Value("${hnb.circuit-breaker.open-duration:PT5M}") Duration openDuration,
+                      MeterRegistry meterRegistry,
+                      ApplicationEventPublisher eventPublisher) {
         this.apiUrl = apiUrl;
-        this.restTemplate = new RestTemplate();
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.fallbackCounter = Counter.builder("hnb.rate.fallback")
+                .description("Rate lookups answered with the fallback rate")
+                .register(meterRegistry);
+        this.readTimeout = readTimeout;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC());
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        Gauge.builder("hnb.circuit.open", circuitBreaker, cb -> cb.isOpen() ? 1 : 0)
+                .description("Whether calls to HNB are suspended by the circuit breaker")
+                .register(meterRegistry);
     }
 
     /**
-     * Retrieves the current EUR→USD exchange rate from HNB.
-     * Falls back to a default value (1.08) if parsing or network requests fail.
+     * Returns the last known EUR→USD exchange rate without performing any I/O.
+     * Falls back to a default value (1.08) until the first successful refresh.
      *
      * @return EUR→USD rate as BigDecimal
      */
-    @Cacheable("hnbRate")
     public BigDecimal getEurToUsdRate() {
-        try {
-            String url = apiUrl + "?valuta=USD";
-            HnbRateResponse[] response = restTemplate.getForObject(url, HnbRateResponse[].class);
-
-            if (response != null && response.length > 0) {
-                BigDecimal rate = new BigDecimal(response[0].srednji_tecaj().replace(",", "."));
-                log.info("Fetched EUR→USD rate from HNB: {} (date: {})", rate, response[0].datum_primjene());
-                return rate;
-            } else {
-                log.warn("HNB API returned empty array for USD rate.");
+        RateTable current = rates.get();
+        BigDecimal usd = current == null ? null : current.rate("USD");
+        if (usd != null) return usd;
+        fallbackCounter.increment();
+        return FALLBACK_RATE;
+    }
+
+    /**
+     * Returns the last known rate table without performing any I/O.
+     * Until the first successful refresh this is a fallback table holding only EUR and USD (1.08).
+     *
+     * @return current rate table
+     */
+    public RateTable getRateTable() {
+        RateTable current = rates.get();
+        if (current != null) return current;
+        fallbackCounter.increment();
+        return FALLBACK_TABLE;
+    }
+
+    /**
+     * Triggers a background refresh of the rates on the configured schedule.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${hnb.refresh-interval:PT10M}")
+    public void scheduledRefresh() {
+        refresh().subscribe();
+    }
+
+    /**
+     * Fetches the current rate list from HNB and stores it as the last known rate table.
+     * Failures are logged and leave the last known table in place. While the circuit
+     * is open no request is made; while another refresh is in flight, the caller joins it.
+     *
+     * @return the last known rate table after the refresh, empty if none is known yet
+     */
+    public Mono<RateTable> refresh() {
+        return Mono.defer(() -> {
+            Mono<RateTable> current = inFlight.get();
+            if (current != null) {
+                return current;
             }
-        } catch (Exception ex) {
-            log.warn("Failed to fetch EUR→USD rate from HNB, falling back to default", ex);
-        }
+            if (!circuitBreaker.allowRequest()) {
+                log.debug("HNB circuit is open, keeping last known rates");
+                return Mono.justOrEmpty(rates.get());
+            }
+            AtomicReference<Mono<RateTable>> self = new AtomicReference<>();
+            Mono<RateTable> call = fetch()
+                    .doFinally(signal -> inFlight.compareAndSet(self.get(), null))
+                    .cache();
+            self.set(call);
+            Mono<RateTable> winner = inFlight.compareAndExchange(null, call);
+            return winner != null ? winner : call;
+        });
+    }
+
+    private Mono<RateTable> fetch() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return webClient.get()
+                    .uri(apiUrl)
+                    .retrieve()
+                    .bodyToMono(HnbRateResponse[].class)
+                    .timeout(readTimeout)
+                    .defaultIfEmpty(new HnbRateResponse[0])
+                    .map(this::parseRates)
+                    .doOnNext(fetched -> {
+                        RateTable previous = rates.getAndSet(fetched);
+                        circuitBreaker.recordSuccess();
+                        sample.stop(fetchTimer("success"));
+                        if (previous == null || !Objects.equals(previous.rates(), fetched.rates())) {
+                            eventPublisher.publishEvent(new RateTableChangedEvent(previous, fetched));
+                        }
+                    })
+                    .onErrorResume(ex -> {
+                        circuitBreaker.recordFailure();
+                        sample.stop(fetchTimer("failure"));
+                        log.warn("Failed to fetch rates from HNB, using {} rates",
+                                rates.get() != null ? "last known" : "fallback", ex);
+                        return Mono.justOrEmpty(rates.get());
+                    });
+        });
+    }
+
+    /**
+     * Indicates whether calls to HNB are currently suspended by the circuit breaker.
+     *
+     * @return true if the circuit is open
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
 
-        BigDecimal fallbackRate = BigDecimal.valueOf(1.08);
-        log.info("Using fallback EUR→USD rate: {}", fallbackRate);
-        return fallbackRate;
+    private Timer fetchTimer(String outcome) {
+        return Timer.builder("hnb.fetch")
+                .description("Latency of rate list fetches from HNB")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
+    private RateTable parseRates(HnbRateResponse[] response) {
+        if (response == null || response.length == 0) {
+            throw new IllegalStateException("HNB API returned an empty rate list");
+        }
+        Map<String, BigDecimal> parsed = new HashMap<>(response.length * 2);
+        for (HnbRateResponse entry : response) {
+            if (entry.valuta() == null || entry.srednji_tecaj() == null) continue;
+            parsed.put(entry.valuta().toUpperCase(Locale.ROOT), new BigDecimal(entry.srednji_tecaj().replace(",", ".")));
+        }
+        LocalDate date = response[0].datum_primjene() == null ? null : LocalDate.parse(response[0].datum_primjene());
+        log.info("Fetched {} exchange rates from HNB (date: {}, EUR→USD: {})", parsed.size(), date, parsed.get("USD"));
+        return new RateTable(date, parsed);
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.productapi.service;
+
+/**
+ * Review accepted by the {@link ReviewIngestionQueue} and waiting to be written.
+ *
+ * @param productId id of the reviewed product
+ * @param reviewer  name of the reviewer
+ * @param text      review text
+ * @param rating    star rating (1 to 5)
+ */
+public record PendingReview(Long productId, String reviewer, String text, int rating) {
+}
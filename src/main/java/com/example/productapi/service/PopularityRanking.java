@@ -0,0 +1,140 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory ranking of reviewed products by average rating.
+ *
+ * <p>Products are kept in a sorted set ordered by average rating (highest first),
+ * so the top K entries are read in O(K) without touching the database.
+ * Updates carry absolute aggregates; since the review count only grows,
+ * an update with a lower count than the current entry is stale and ignored.</p>
+ *
+ * <p>A rebuild fills a fresh ranking from the database and swaps it in, so entries
+ * restored from a snapshot that the database does not confirm are dropped. Updates
+ * arriving during the rebuild go into both rankings.</p>
+ */
+@Slf4j
+@Component
+public class PopularityRanking {
+
+    private static final int REBUILD_BATCH = 10_000;
+
+    /**
+     * Highest average first, compared exactly as fractions; ties go to the
+     * product with more reviews, then to the lower id.
+     */
+    private static final Comparator<ProductRating> ORDER = (a, b) -> {
+        int byAverage = Long.compare(b.ratingSum() * a.ratingCount(), a.ratingSum() * b.ratingCount());
+        if (byAverage != 0) return byAverage;
+        int byCount = Long.compare(b.ratingCount(), a.ratingCount());
+        if (byCount != 0) return byCount;
+        return Long.compare(a.id(), b.id());
+    };
+
+    private final ProductRepository productRepository;
+    private volatile Ranking current = new Ranking();
+    private volatile Ranking building;
+    private volatile boolean ready;
+
+    public PopularityRanking(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Loads the rating aggregates of all reviewed products in id-ordered batches
+     * into a new ranking and swaps it in.
+     */
+    public void rebuild() {
+        Ranking next = new Ranking();
+        building = next;
+        long after = 0;
+        int total = 0;
+        List<ProductRating> batch;
+        do {
+            batch = productRepository.findRatingsAfter(after, Limit.of(REBUILD_BATCH));
+            batch.forEach(next::update);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+                total += batch.size();
+            }
+        } while (batch.size() == REBUILD_BATCH);
+        current = next;
+        building = null;
+        ready = true;
+        log.info("Popularity ranking built with {} reviewed products", total);
+    }
+
+    /**
+     * Fills the ranking with rating aggregates read from a snapshot and starts answering
+     * queries with them, until the next {@link #rebuild()} replaces them.
+     *
+     * @param ratings rating aggregates
+     */
+    public void restore(Iterable<ProductRating> ratings) {
+        Ranking ranking = current;
+        ratings.forEach(ranking::update);
+        ready = true;
+    }
+
+    /**
+     * Records the current rating aggregates of a product.
+     *
+     * @param rating absolute rating aggregates
+     */
+    public void update(ProductRating rating) {
+        // read building before current: a rebuild swaps current in before clearing building
+        Ranking next = building;
+        current.update(rating);
+        if (next != null) next.update(rating);
+    }
+
+    /**
+     * Returns the highest rated products.
+     *
+     * @param k maximum number of products to return
+     * @return up to {@code k} products, highest average first,
+     *         or {@code null} if the ranking has not been built yet
+     */
+    public List<ProductRating> top(int k) {
+        if (!ready) return null;
+        List<ProductRating> top = new ArrayList<>(k);
+        Iterator<ProductRating> it = current.ranked.iterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next());
+        }
+        return top;
+    }
+
+    /**
+     * Reviewed products sorted by rating, plus the entry per product id.
+     */
+    private static final class Ranking {
+        private final ConcurrentSkipListSet<ProductRating> ranked = new ConcurrentSkipListSet<>(ORDER);
+        private final Map<Long, ProductRating> byId = new ConcurrentHashMap<>();
+
+        void update(ProductRating rating) {
+            if (rating.ratingCount() == 0) return;
+            byId.compute(rating.id(), (id, existing) -> {
+                if (existing != null) {
+                    if (existing.ratingCount() >= rating.ratingCount()) return existing;
+                    ranked.remove(existing);
+                }
+                ranked.add(rating);
+                return rating;
+            });
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.productapi.service;
+
+/**
+ * A 15-character ASCII product code packed into two longs, one byte per character:
+ * characters 0-7 in {@code hi}, characters 8-14 in the low seven bytes of {@code lo}.
+ *
+ * <p>Equality and hashing work on the two longs, with no character loop and no
+ * {@code String} or {@code byte[]} behind the key.</p>
+ *
+ * @param hi first eight characters
+ * @param lo last seven characters
+ */
+public record ProductCode(long hi, long lo) {
+
+    /**
+     * Number of characters in a product code.
+     */
+    public static final int LENGTH = 15;
+
+    /**
+     * Packs a product code.
+     *
+     * @param code product code
+     * @return the packed code, or {@code null} if the code is not 15 ASCII characters
+     */
+    public static ProductCode of(String code) {
+        if (code == null || code.length() != LENGTH) return null;
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < 8; i++) {
+            char ch = code.charAt(i);
+            if (ch == 0 || ch > 0x7f) return null;
+            hi = hi << 8 | ch;
+        }
+        for (int i = 8; i < LENGTH; i++) {
+            char ch = code.charAt(i);
+            if (ch == 0 || ch > 0x7f) return null;
+            lo = lo << 8 | ch;
+        }
+        return new ProductCode(hi, lo);
+    }
+
+    /**
+     * Returns the key a code is cached under: the packed code, or the code itself
+     * if it does not pack.
+     *
+     * @param code product code
+     * @return cache key
+     */
+    public static Object key(String code) {
+        ProductCode packed = of(code);
+        return packed != null ? packed : code;
+    }
+
+    /**
+     * Spreads both halves over all 64 bits (SplitMix64 finalizer), for open addressing.
+     *
+     * @return mixed hash of the code
+     */
+    public long mix() {
+        long h = hi * 0x9e3779b97f4a7c15L ^ lo;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) mix();
+    }
+
+    @Override
+    public String toString() {
+        char[] chars = new char[LENGTH];
+        for (int i = 7; i >= 0; i--) {
+            chars[i] = (char) (hi >>> ((7 - i) * 8) & 0xff);
+        }
+        for (int i = LENGTH - 1; i >= 8; i--) {
+            chars[i] = (char) (lo >>> ((LENGTH - 1 - i) * 8) & 0xff);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.productapi.service;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Recognizes violations of the unique constraint on the product code.
+ */
+public final class ProductCodeConflicts {
+
+    /**
+     * Name of the unique constraint on {@code product.code}.
+     */
+    public static final String CONSTRAINT = "uk_product_code";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private ProductCodeConflicts() {
+    }
+
+    /**
+     * Tells whether the given failure, or one of its causes, is a unique violation on the product code.
+     * Other integrity violations, such as oversized values or null columns, are not.
+     *
+     * @param ex failure raised while writing products
+     * @return true if another product already holds the code
+     */
+    public static boolean isDuplicateCode(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve && namesConstraint(cve.getConstraintName())) {
+                return true;
+            }
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())
+                    && namesConstraint(sql.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean namesConstraint(String text) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(CONSTRAINT);
+    }
+}
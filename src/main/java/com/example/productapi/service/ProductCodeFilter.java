@@ -0,0 +1,134 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.ReadRouting;
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link BloomFilter} over all product codes.
+ *
+ * <p>Answers "does this code exist?" with "definitely not" or "maybe", so duplicate checks
+ * for new codes need no database round trip. A "maybe" still goes to the database, and the
+ * unique constraint on {@code code} stays the final arbiter, also for codes written by other
+ * instances that the filter has not seen. Lookups by code do not consult the filter, as such
+ * a code would wrongly be reported as missing.</p>
+ *
+ * <p>The filter is built from the database on startup and updated as products are
+ * written. Until the build has finished, every code is reported as possibly present.
+ * When more codes have been added than the filter was sized for, it is rebuilt in the
+ * background at twice the size.</p>
+ */
+@Slf4j
+@Component
+public class ProductCodeFilter {
+
+    private static final int REBUILD_BATCH = 10_000;
+
+    private final ProductRepository productRepository;
+    private final long expectedProducts;
+    private final double falsePositiveRate;
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private long preloaded;
+
+    public ProductCodeFilter(ProductRepository productRepository,
+                             @Value("${product.code-filter.expected-products:1000000}") long expectedProducts,
+                             @Value("${product.code-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.productRepository = productRepository;
+        this.expectedProducts = expectedProducts;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Builds a new filter from every product code in the database and swaps it in.
+     * Codes added while the build runs go into both the old and the new filter.
+     */
+    public void rebuild() {
+        prepare(0);
+        loadAfter(0);
+    }
+
+    /**
+     * Starts building a new filter. Until {@link #loadAfter(long)} swaps it in,
+     * codes passed to {@link #add(String)} go into it as well.
+     *
+     * @param knownCodes number of codes that will be added before the database is read
+     */
+    public void prepare(long knownCodes) {
+        preloaded = knownCodes;
+        building = new BloomFilter(Math.max(expectedProducts, 2 * Math.max(added.get(), knownCodes)),
+                falsePositiveRate);
+    }
+
+    /**
+     * Adds the codes of products with an id above {@code after} to the filter being built
+     * and swaps it in.
+     *
+     * @param after exclusive lower bound for the product id
+     */
+    public void loadAfter(long after) {
+        long started = System.nanoTime();
+        BloomFilter next = building;
+        long total = preloaded;
+        List<ProductSearchEntry> batch;
+        do {
+            batch = productRepository.findSearchEntriesAfter(after, Limit.of(REBUILD_BATCH));
+            for (ProductSearchEntry e : batch) {
+                next.put(e.code());
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+                total += batch.size();
+            }
+        } while (batch.size() == REBUILD_BATCH);
+        added.set(total);
+        filter = next;
+        building = null;
+        log.info("Product code filter built with {} codes ({} KB) in {} ms",
+                total, next.bitSize() / 8 / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Records a newly written product code.
+     *
+     * @param code product code
+     */
+    public void add(String code) {
+        BloomFilter next = building;
+        if (next != null) next.put(code);
+        BloomFilter current = filter;
+        if (current == null) return;
+        current.put(code);
+        if (added.incrementAndGet() > current.capacity() && rebuilding.compareAndSet(false, true)) {
+            log.info("Product code filter is over capacity ({} codes), rebuilding", current.capacity());
+            Thread.ofVirtual().name("product-code-filter-rebuild").start(() -> {
+                try {
+                    ReadRouting.onPrimary(this::rebuild);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks whether a product with the given code may exist.
+     *
+     * @param code product code
+     * @return {@code false} only if no product has the code
+     */
+    public boolean mightContain(String code) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(code);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory map from product code to product id, keyed on {@link ProductCode}s
+ * in a primitive {@link ProductCodeMap}.
+ *
+ * <p>Once the startup build has finished, codes of 15 ASCII characters are answered with
+ * the id of the product or with {@link #MISSING}. The index only holds products written
+ * through this instance, so {@link #MISSING} does not prove that no product has the code;
+ * callers confirm it with the database, as they do for {@link #UNKNOWN}, which is returned
+ * for other codes and for every code before the build has finished.</p>
+ */
+@Slf4j
+@Component
+public class ProductCodeIndex {
+
+    /**
+     * No product with the code has been indexed by this instance.
+     */
+    public static final long MISSING = ProductCodeMap.ABSENT;
+
+    /**
+     * The index cannot answer for this code; ask the database.
+     */
+    public static final long UNKNOWN = -2;
+
+    private static final int REBUILD_BATCH = 10_000;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProductCodeMap codes = new ProductCodeMap(REBUILD_BATCH);
+    private volatile boolean ready;
+
+    public ProductCodeIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Loads every product code into the index in id-ordered batches.
+     * Adds are idempotent, so writes that race with the rebuild are safe.
+     */
+    public void rebuild() {
+        loadAfter(0);
+    }
+
+    /**
+     * Loads the codes of products with an id above {@code after} and starts answering lookups.
+     * Used to catch up with the database after the index was filled from a snapshot.
+     *
+     * @param after exclusive lower bound for the product id
+     */
+    public void loadAfter(long after) {
+        long started = System.nanoTime();
+        List<ProductSearchEntry> batch;
+        do {
+            batch = productRepository.findSearchEntriesAfter(after, Limit.of(REBUILD_BATCH));
+            lock.writeLock().lock();
+            try {
+                for (ProductSearchEntry e : batch) {
+                    ProductCode code = ProductCode.of(e.code());
+                    if (code != null) codes.put(code, e.id());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == REBUILD_BATCH);
+        ready = true;
+        log.info("Product code index holds {} codes after loading in {} ms",
+                size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds a product to the index.
+     *
+     * @param id   product id
+     * @param code product code
+     */
+    public void add(Long id, String code) {
+        ProductCode packed = ProductCode.of(code);
+        if (packed == null) return;
+        lock.writeLock().lock();
+        try {
+            codes.put(packed, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks up the id of the product with the given code.
+     *
+     * @param code product code
+     * @return the product id, {@link #MISSING} if no product with the code is indexed,
+     *         or {@link #UNKNOWN} if the index cannot tell
+     */
+    public long idOf(String code) {
+        if (!ready) return UNKNOWN;
+        ProductCode packed = ProductCode.of(code);
+        if (packed == null) return UNKNOWN;
+        lock.readLock().lock();
+        try {
+            return codes.get(packed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed codes.
+     *
+     * @return number of codes
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return codes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
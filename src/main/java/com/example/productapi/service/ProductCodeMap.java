@@ -0,0 +1,118 @@
+package com.example.productapi.service;
+
+/**
+ * Open-addressing hash map from {@link ProductCode} to product id, stored in three
+ * primitive arrays: no entry objects, no boxed ids and no strings.
+ *
+ * <p>Slots are probed linearly and the table doubles when it is three quarters full.
+ * A slot takes 24 bytes and tables are 37.5% to 75% occupied, so an entry costs 32 to
+ * 64 bytes. A slot with {@code hi == 0} is empty; packed codes never have a zero first
+ * half. Entries are never removed.</p>
+ *
+ * <p>Not thread-safe; see {@link ProductCodeIndex}.</p>
+ */
+public final class ProductCodeMap {
+
+    /**
+     * Returned by {@link #get(ProductCode)} when the code is not in the map.
+     */
+    public static final long ABSENT = -1;
+
+    private long[] his;
+    private long[] los;
+    private long[] ids;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a map with room for the given number of entries before it resizes.
+     *
+     * @param expectedSize number of entries to size for
+     */
+    public ProductCodeMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expectedSize * 4L / 3 + 1)) * 2 - 1);
+        allocate(capacity);
+    }
+
+    /**
+     * Maps a code to a product id, replacing any previous id.
+     *
+     * @param code product code
+     * @param id   product id, not negative
+     */
+    public void put(ProductCode code, long id) {
+        if (id < 0) throw new IllegalArgumentException("id must not be negative");
+        if (insert(code.hi(), code.lo(), id, code.mix())) {
+            if (++size > (mask + 1) / 4 * 3) grow();
+        }
+    }
+
+    /**
+     * Returns the product id mapped to a code.
+     *
+     * @param code product code
+     * @return the id, or {@link #ABSENT}
+     */
+    public long get(ProductCode code) {
+        long hi = code.hi();
+        long lo = code.lo();
+        for (int i = (int) code.mix() & mask; ; i = (i + 1) & mask) {
+            long h = his[i];
+            if (h == 0) return ABSENT;
+            if (h == hi && los[i] == lo) return ids[i];
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return number of mapped codes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memory held by the backing arrays.
+     *
+     * @return size of the arrays in bytes
+     */
+    public long arrayBytes() {
+        return 3L * 8 * his.length;
+    }
+
+    private boolean insert(long hi, long lo, long id, long hash) {
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            long h = his[i];
+            if (h == 0) {
+                his[i] = hi;
+                los[i] = lo;
+                ids[i] = id;
+                return true;
+            }
+            if (h == hi && los[i] == lo) {
+                ids[i] = id;
+                return false;
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldHis = his;
+        long[] oldLos = los;
+        long[] oldIds = ids;
+        allocate(oldHis.length * 2);
+        for (int i = 0; i < oldHis.length; i++) {
+            if (oldHis[i] != 0) {
+                insert(oldHis[i], oldLos[i], oldIds[i], new ProductCode(oldHis[i], oldLos[i]).mix());
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        his = new long[capacity];
+        los = new long[capacity];
+        ids = new long[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.BulkImportError;
+import com.example.productapi.dto.BulkImportResult;
+import com.example.productapi.dto.Price;
+import com.example.productapi.dto.ProductRequest;
+import com.example.productapi.entity.Product;
+import com.example.productapi.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service importing large product catalogs in chunks.
+ *
+ * <p>Each chunk is validated row by row, deduplicated against the payload and
+ * the database with a single query (skipped when the code filter has seen none
+ * of the codes), converted with one exchange-rate snapshot
+ * for the whole import, and inserted in one JDBC batch. Invalid or duplicate
+ * rows are reported back without aborting the rest of the import.</p>
+ */
+@Slf4j
+@Service
+public class ProductImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final HnbService hnbService;
+    private final ProductSearchIndex searchIndex;
+    private final ProductTextIndex textIndex;
+    private final ProductCodeFilter codeFilter;
+    private final ProductCodeIndex codeIndex;
+    private final CatalogVersion catalogVersion;
+    private final SearchResultCache searchResultCache;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates a ProductImportService with required dependencies.
+     *
+     * @param productRepository repository for products
+     * @param hnbService service for currency conversion
+     * @param searchIndex in-memory search index kept in sync with inserts
+     * @param textIndex full-text index kept in sync with inserts
+     * @param codeFilter Bloom filter over product codes, kept in sync with inserts
+     * @param codeIndex map from product code to id, kept in sync with inserts
+     * @param catalogVersion catalog version bumped after every committed chunk
+     * @param searchResultCache cache of search pages, cleared after every committed chunk
+     * @param validator bean validator applied to every row
+     * @param transactionTemplate template running each chunk in its own transaction
+     */
+    public ProductImportService(ProductRepository productRepository, HnbService hnbService,
+                                ProductSearchIndex searchIndex, ProductTextIndex textIndex,
+                                ProductCodeFilter codeFilter, ProductCodeIndex codeIndex,
+                                CatalogVersion catalogVersion, SearchResultCache searchResultCache,
+                                Validator validator, TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.hnbService = hnbService;
+        this.searchIndex = searchIndex;
+        this.textIndex = textIndex;
+        this.codeFilter = codeFilter;
+        this.codeIndex = codeIndex;
+        this.catalogVersion = catalogVersion;
+        this.searchResultCache = searchResultCache;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Imports products from the given rows.
+     * Reading stops at the first row that cannot be parsed; that row is reported as an error.
+     *
+     * @param rows product requests, read lazily
+     * @return number of received and created rows, plus per-row errors
+     */
+    public BulkImportResult importProducts(Iterator<ProductRequest> rows) {
+        BigDecimal rate = hnbService.getEurToUsdRate();
+        List<BulkImportError> errors = new ArrayList<>();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        int received = 0;
+        int created = 0;
+
+        while (true) {
+            ProductRequest req;
+            try {
+                if (!rows.hasNext()) break;
+                req = rows.next();
+            } catch (RuntimeException ex) {
+                errors.add(new BulkImportError(received, null, "Malformed input: " + ex.getMessage()));
+                break;
+            }
+            chunk.add(new Row(received++, req));
+            if (chunk.size() == CHUNK_SIZE) {
+                created += importChunk(chunk, rate, errors);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            created += importChunk(chunk, rate, errors);
+        }
+        log.info("Bulk import finished: {} received, {} created, {} rejected", received, created, errors.size());
+        return new BulkImportResult(received, created, errors);
+    }
+
+    private int importChunk(List<Row> chunk, BigDecimal rate, List<BulkImportError> errors) {
+        List<Row> valid = new ArrayList<>(chunk.size());
+        Set<String> codes = new HashSet<>();
+        for (Row row : chunk) {
+            String violation = validate(row.request());
+            if (violation != null) {
+                errors.add(new BulkImportError(row.index(), row.code(), violation));
+            } else if (!codes.add(row.code())) {
+                errors.add(new BulkImportError(row.index(), row.code(), "Duplicate code in payload"));
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) return 0;
+
+        Set<String> existing = existingCodes(codes);
+        List<Row> toInsert = new ArrayList<>(valid.size());
+        for (Row row : valid) {
+            if (existing.contains(row.code())) {
+                errors.add(new BulkImportError(row.index(), row.code(), "Product with same code exists"));
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) return 0;
+
+        try {
+            List<Product> saved = transactionTemplate.execute(status -> productRepository.saveAllAndFlush(
+                    toInsert.stream().map(row -> toEntity(row.request(), rate)).collect(Collectors.toList())));
+            saved.forEach(this::index);
+            searchResultCache.invalidateAll();
+            catalogVersion.bumpProducts();
+            return saved.size();
+        } catch (DataAccessException ex) {
+            log.warn("Batch insert of {} products failed, retrying row by row", toInsert.size(), ex);
+            return insertRowByRow(toInsert, rate, errors);
+        }
+    }
+
+    private int insertRowByRow(List<Row> rows, BigDecimal rate, List<BulkImportError> errors) {
+        int created = 0;
+        for (Row row : rows) {
+            try {
+                Product p = transactionTemplate.execute(status -> productRepository.saveAndFlush(toEntity(row.request(), rate)));
+                index(p);
+                created++;
+            } catch (DataAccessException ex) {
+                errors.add(new BulkImportError(row.index(), row.code(), insertError(ex)));
+            }
+        }
+        if (created > 0) {
+            searchResultCache.invalidateAll();
+            catalogVersion.bumpProducts();
+        }
+        return created;
+    }
+
+    /**
+     * Reports unique violations on the code as duplicates and anything else by its root cause.
+     */
+    private String insertError(DataAccessException ex) {
+        if (ProductCodeConflicts.isDuplicateCode(ex)) return "Product with same code exists";
+        log.warn("Insert of imported product failed", ex);
+        return "Insert failed: " + ex.getMostSpecificCause().getMessage();
+    }
+
+    /**
+     * Codes the filter rules out are new, and codes the index holds exist; the rest,
+     * including codes missing from the index, are looked up in the database.
+     */
+    private Set<String> existingCodes(Set<String> codes) {
+        Set<String> existing = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String code : codes) {
+            if (!codeFilter.mightContain(code)) continue;
+            if (codeIndex.idOf(code) >= 0) {
+                existing.add(code);
+            } else {
+                unknown.add(code);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            existing.addAll(productRepository.findExistingCodes(unknown));
+        }
+        return existing;
+    }
+
+    private void index(Product p) {
+        codeFilter.add(p.getCode());
+        codeIndex.add(p.getId(), p.getCode());
+        searchIndex.add(p.getId(), p.getCode(), p.getName());
+        textIndex.add(p.getId(), p.getCode(), p.getName(), p.getDescription());
+    }
+
+    private String validate(ProductRequest req) {
+        if (req == null) return "Empty row";
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(req);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Product toEntity(ProductRequest req, BigDecimal rate) {
+        Product p = new Product();
+        p.setCode(req.getCode());
+        p.setName(req.getName());
+        p.setPriceEur(req.getPriceEur());
+        p.setPriceUsd(Price.convert(req.getPriceEur(), rate, 2));
+        p.setDescription(req.getDescription());
+        return p;
+    }
+
+    private record Row(int index, ProductRequest request) {
+        String code() {
+            return request == null ? null : request.getCode();
+        }
+    }
+}
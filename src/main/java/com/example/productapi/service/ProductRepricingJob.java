@@ -0,0 +1,107 @@
+package com.example.productapi.service;
+
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batch job recomputing stored USD prices when the HNB rate changes.
+ *
+ * <p>The job reacts to {@link RateTableChangedEvent}s and runs on the application
+ * task executor, never on the thread that fetched the rates. Products are
+ * repriced in id ranges, each in its own transaction. If the rate changes again
+ * while a run is in progress, the run stops early and restarts with the newest rate.</p>
+ *
+ * <p>Prices rendered on the fly in other currencies depend on the whole rate table,
+ * so every change also bumps the {@link CatalogVersion}.</p>
+ */
+@Slf4j
+@Component
+public class ProductRepricingJob {
+
+    static final long CHUNK = 10_000;
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final Executor executor;
+    private final AtomicReference<BigDecimal> pending = new AtomicReference<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ProductRepricingJob(ProductRepository productRepository, ProductService productService,
+                               CatalogVersion catalogVersion,
+                               @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.catalogVersion = catalogVersion;
+        this.executor = executor;
+    }
+
+    /**
+     * Schedules a repricing run if the USD rate has changed.
+     *
+     * @param event rate table change
+     */
+    @EventListener
+    public void onRatesChanged(RateTableChangedEvent event) {
+        catalogVersion.bump();
+        BigDecimal usd = event.current().rate("USD");
+        BigDecimal previousUsd = event.previous() == null ? null : event.previous().rate("USD");
+        if (usd == null || usd.equals(previousUsd)) return;
+        pending.set(usd);
+        schedule();
+    }
+
+    /**
+     * Reprices every product with the given USD rate.
+     *
+     * @param usdRate EUR→USD rate
+     * @return number of updated products
+     */
+    public int reprice(BigDecimal usdRate) {
+        Long maxId = productRepository.findMaxId();
+        if (maxId == null) return 0;
+
+        long started = System.nanoTime();
+        int updated = 0;
+        for (long from = 1; from <= maxId; from += CHUNK) {
+            updated += productService.repriceUsd(usdRate, from, from + CHUNK - 1);
+            if (pending.get() != null) {
+                log.info("Rate changed during repricing, restarting after {} products", updated);
+                return updated;
+            }
+        }
+        log.info("Repriced {} products with EUR→USD rate {} in {} ms",
+                updated, usdRate, (System.nanoTime() - started) / 1_000_000);
+        return updated;
+    }
+
+    private void schedule() {
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            BigDecimal rate;
+            while ((rate = pending.getAndSet(null)) != null) {
+                reprice(rate);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Repricing products failed", ex);
+        } finally {
+            running.set(false);
+        }
+        if (pending.get() != null) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over product codes and names.
+ *
+ * <p>Each lower-cased trigram maps to a sorted list of product ids containing it.
+ * A substring query is answered by intersecting the posting lists of its trigrams,
+ * which yields a superset of the matching ids; callers verify the candidates
+ * against the hydrated rows.</p>
+ *
+ * <p>Queries shorter than three characters cannot be answered by the index,
+ * and neither can any query issued before the startup rebuild has finished.
+ * In both cases {@link #candidates(String, String)} returns {@code null}
+ * and the caller falls back to the database.</p>
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    static final int GRAM = 3;
+    private static final int REBUILD_BATCH = 10_000;
+    private static final long[] NONE = new long[0];
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> codeGrams = new HashMap<>();
+    private final Map<Long, Postings> nameGrams = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Loads every product into the index in id-ordered batches.
+     * Adds are idempotent, so writes that race with the rebuild are safe.
+     */
+    public void rebuild() {
+        loadAfter(0);
+    }
+
+    /**
+     * Loads the products with an id above {@code after} and starts answering queries.
+     * Used to catch up with the database after the index was filled from a snapshot.
+     *
+     * @param after exclusive lower bound for the product id
+     */
+    public void loadAfter(long after) {
+        long started = System.nanoTime();
+        int total = 0;
+        List<ProductSearchEntry> batch;
+        do {
+            batch = productRepository.findSearchEntriesAfter(after, Limit.of(REBUILD_BATCH));
+            lock.writeLock().lock();
+            try {
+                for (ProductSearchEntry e : batch) {
+                    addUnlocked(e.id(), e.code(), e.name());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+                total += batch.size();
+            }
+        } while (batch.size() == REBUILD_BATCH);
+        ready = true;
+        log.info("Product search index loaded {} products in {} ms",
+                total, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds a product to the index.
+     *
+     * @param id   product id
+     * @param code product code
+     * @param name product name
+     */
+    public void add(Long id, String code, String name) {
+        lock.writeLock().lock();
+        try {
+            addUnlocked(id, code, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves candidate product ids for a code and/or name substring filter.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @return ascending candidate ids, or {@code null} if the index cannot answer the query
+     */
+    public long[] candidates(String code, String name) {
+        if (!ready) return null;
+        String c = normalize(code);
+        String n = normalize(name);
+        boolean useCode = c != null && c.length() >= GRAM;
+        boolean useName = n != null && n.length() >= GRAM;
+        if (!useCode && !useName) return null;
+
+        lock.readLock().lock();
+        try {
+            long[] result = null;
+            if (useCode) result = intersect(codeGrams, c, result);
+            if (useName && (result == null || result.length > 0)) result = intersect(nameGrams, n, result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indicates whether the startup rebuild has completed.
+     *
+     * @return true once the index can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private void addUnlocked(Long id, String code, String name) {
+        for (long gram : grams(normalize(code))) {
+            codeGrams.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+        for (long gram : grams(normalize(name))) {
+            nameGrams.computeIfAbsent(gram, g -> new Postings()).add(id);
+        }
+    }
+
+    private static long[] intersect(Map<Long, Postings> index, String query, long[] seed) {
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams(query)) {
+            Postings p = index.get(gram);
+            if (p == null) return NONE;
+            lists.add(p);
+        }
+        lists.sort(Comparator.comparingInt(p -> p.size));
+
+        long[] result = seed;
+        for (Postings p : lists) {
+            result = result == null ? Arrays.copyOf(p.ids, p.size) : p.retain(result);
+            if (result.length == 0) break;
+        }
+        return result;
+    }
+
+    private static Set<Long> grams(String value) {
+        Set<Long> grams = new LinkedHashSet<>();
+        if (value == null) return grams;
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(((long) value.charAt(i) << 32)
+                    | ((long) value.charAt(i + 1) << 16)
+                    | value.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * Sorted, duplicate-free list of product ids.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int pos = Arrays.binarySearch(ids, 0, size, id);
+                if (pos >= 0) return;
+                insertAt(-pos - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        long[] retain(long[] sorted) {
+            long[] out = new long[Math.min(size, sorted.length)];
+            int i = 0, j = 0, k = 0;
+            while (i < size && j < sorted.length) {
+                if (ids[i] < sorted[j]) i++;
+                else if (ids[i] > sorted[j]) j++;
+                else {
+                    out[k++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, k);
+        }
+
+        private void insertAt(int pos, long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+    }
+}
@@ -1,20 +1,38 @@
 package com.example.productapi.service;
 
 import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.dto.Price;
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductRating;
 import com.example.productapi.dto.ProductRequest;
 import com.example.productapi.dto.ProductResponse;
 import com.example.productapi.entity.Product;
 import com.example.productapi.entity.Review;
+import com.example.productapi.exception.ProductNotFoundException;
 import com.example.productapi.repository.ProductRepository;
 import com.example.productapi.repository.ReviewRepository;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service layer handling product creation, searching, price conversion,
@@ -26,6 +44,45 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final ReviewRepository reviewRepository;
     private final HnbService hnbService;
+    private final ProductSearchIndex searchIndex;
+    private final ProductTextIndex textIndex;
+    private final ProductCodeFilter codeFilter;
+    private final ProductCodeIndex codeIndex;
+    private final PopularityRanking popularityRanking;
+    private final CatalogVersion catalogVersion;
+    private final SearchResultCache searchResultCache;
+    private final EntityManager entityManager;
+
+    /**
+     * Largest page size accepted by {@link #findProducts(String, String, String, int)}.
+     */
+    public static final int MAX_PAGE_SIZE = 1_000;
+
+    /**
+     * Largest number of products accepted by {@link #findPopular(int, int)}.
+     */
+    public static final int MAX_POPULAR = 100;
+
+    /**
+     * Largest review threshold accepted by {@link #findPopular(int, int)}.
+     */
+    public static final int MAX_MIN_REVIEWS = 1_000;
+
+    /**
+     * Cache holding popular product lists per (limit, minReviews).
+     */
+    public static final String POPULAR_CACHE = "popularProducts";
+
+    /**
+     * Cache holding search pages per normalized {@link SearchKey}.
+     */
+    public static final String SEARCH_CACHE = "productSearch";
+
+    /**
+     * Near-cache holding products per exact code, keyed on the packed {@link ProductCode}.
+     */
+    public static final String PRODUCT_CACHE = "productByCode";
+    private static final int HYDRATE_BATCH = 1_000;
 
     /**
      * Creates a ProductService with required dependencies.
@@ -33,23 +90,46 @@ public class ProductService {
      * @param productRepository repository for products
      * @param reviewRepository repository for product reviews
      * @param hnbService service for currency conversion
+     * @param searchIndex in-memory index used to resolve substring searches
+     * @param textIndex full-text index used for ranked searches
+     * @param codeFilter Bloom filter over product codes, answering lookups of unknown codes
+     * @param codeIndex map from packed product code to id, used for lookups and duplicate checks
+     * @param popularityRanking in-memory ranking of products by average rating
+     * @param catalogVersion catalog version bumped after every committed change
+     * @param searchResultCache cache of search pages, invalidated when products are written
+     * @param entityManager shared entity manager, used for product references when writing reviews
      */
-    public ProductService(ProductRepository productRepository, ReviewRepository reviewRepository, HnbService hnbService) {
+    public ProductService(ProductRepository productRepository, ReviewRepository reviewRepository,
+                          HnbService hnbService, ProductSearchIndex searchIndex, ProductTextIndex textIndex,
+                          ProductCodeFilter codeFilter, ProductCodeIndex codeIndex,
+                          PopularityRanking popularityRanking, CatalogVersion catalogVersion,
+                          SearchResultCache searchResultCache, EntityManager entityManager) {
         this.productRepository = productRepository;
         this.reviewRepository = reviewRepository;
         this.hnbService = hnbService;
+        this.searchIndex = searchIndex;
+        this.textIndex = textIndex;
+        this.codeFilter = codeFilter;
+        this.codeIndex = codeIndex;
+        this.popularityRanking = popularityRanking;
+        this.catalogVersion = catalogVersion;
+        this.searchResultCache = searchResultCache;
+        this.entityManager = entityManager;
     }
 
     /**
      * Creates and persists a new product.
      * Converts its EUR price to USD using HNB’s exchange rate.
+     * The duplicate check is answered by the code filter and the code index, and only
+     * queries the database when neither can tell; the unique constraint catches the rest.
      *
      * @param req the incoming product request DTO
      * @return the saved product as a response DTO
+     * @throws IllegalArgumentException if a product with the same code exists
      */
     @Transactional
     public ProductResponse createProduct(ProductRequest req) {
-        if (productRepository.findByCode(req.getCode()).isPresent()) {
+        if (codeExists(req.getCode())) {
             throw new IllegalArgumentException("Product with same code exists");
         }
         Product p = new Product();
@@ -57,56 +137,486 @@ public class ProductService {
         p.setName(req.getName());
         p.setPriceEur(req.getPriceEur());
         BigDecimal rate = hnbService.getEurToUsdRate();
-        p.setPriceUsd(req.getPriceEur().multiply(rate).setScale(2, RoundingMode.HALF_UP));
+        p.setPriceUsd(Price.convert(req.getPriceEur(), rate, 2));
         p.setDescription(req.getDescription());
-        Product saved = productRepository.save(p);
-        return new ProductResponse(saved.getId(), saved.getCode(), saved.getName(), saved.getPriceEur(), saved.getPriceUsd(), saved.getDescription());
+        Product saved;
+        try {
+            saved = productRepository.saveAndFlush(p);
+        } catch (DataIntegrityViolationException ex) {
+            if (!ProductCodeConflicts.isDuplicateCode(ex)) throw ex;
+            throw new IllegalArgumentException("Product with same code exists");
+        }
+        TransactionHooks.afterCommit(() -> {
+            codeFilter.add(saved.getCode());
+            codeIndex.add(saved.getId(), saved.getCode());
+            searchIndex.add(saved.getId(), saved.getCode(), saved.getName());
+            textIndex.add(saved.getId(), saved.getCode(), saved.getName(), saved.getDescription());
+            catalogVersion.bumpProducts();
+        });
+        return toResponse(saved);
+    }
+
+    /**
+     * Returns the product with exactly the given code.
+     * Codes the code index knows are loaded by id, usually from the second-level cache.
+     * All others are looked up in the database, since they may have been added by another
+     * instance or outside the application; the code filter is not consulted for the same
+     * reason. Found products are kept in the {@value #PRODUCT_CACHE} near-cache.
+     *
+     * @param code product code
+     * @return the product
+     * @throws ProductNotFoundException if no product has the code
+     */
+    @Cacheable(cacheNames = PRODUCT_CACHE, key = "T(com.example.productapi.service.ProductCode).key(#code)",
+            condition = "!T(com.example.productapi.config.ReadRouting).isPrimaryRequired()", sync = true)
+    @Transactional(readOnly = true)
+    public ProductResponse findByCode(String code) {
+        long id = codeIndex.idOf(code);
+        Optional<ProductResponse> found = id >= 0
+                ? productRepository.findById(id).map(this::toResponse)
+                : productRepository.findResponseByCode(code);
+        return found.orElseThrow(() -> new ProductNotFoundException(code));
+    }
+
+    /**
+     * Returns the id of the product with exactly the given code.
+     * Codes the code index knows need no query; others are looked up in the database.
+     *
+     * @param code product code
+     * @return the product id
+     * @throws ProductNotFoundException if no product has the code
+     */
+    @Transactional(readOnly = true)
+    public long productIdOf(String code) {
+        long id = codeIndex.idOf(code);
+        if (id >= 0) return id;
+        return productRepository.findResponseByCode(code)
+                .map(ProductResponse::id)
+                .orElseThrow(() -> new ProductNotFoundException(code));
+    }
+
+    private boolean codeExists(String code) {
+        if (!codeFilter.mightContain(code)) return false;
+        if (codeIndex.idOf(code) >= 0) return true;
+        return productRepository.findByCode(code).isPresent();
+    }
+
+    /**
+     * Searches for products whose code and/or name contain the given text,
+     * one keyset page at a time.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @param after optional cursor returned with the previous page
+     * @param limit maximum number of products on the page
+     * @return the requested page of product responses
+     * @see #findProducts(String, String, SearchMatch, String, int)
+     */
+    @Transactional(readOnly = true)
+    public ProductPage findProducts(String code, String name, String after, int limit) {
+        return findProducts(code, name, SearchMatch.CONTAINS, after, limit);
+    }
+
+    /**
+     * Returns the key {@link #findProducts(String, String, SearchMatch, String, int)} caches a page under.
+     * It includes the product set version read before the search runs, so a page read before
+     * a concurrent product change was committed is stored under the version that change
+     * replaces. Reviews do not change search pages and leave the version alone.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @param match how the filters are matched
+     * @param after optional cursor returned with the previous page
+     * @param limit maximum number of products on the page
+     * @return cache key of the page
+     */
+    public SearchKey searchKey(String code, String name, SearchMatch match, String after, int limit) {
+        return SearchKey.of(catalogVersion.products(), code, name, match, after, limit);
+    }
+
+    /**
+     * Searches for products by code, name, both, or returns all,
+     * one keyset page at a time.
+     * Substring filters are resolved through the in-memory search index
+     * when possible, so only matching rows are loaded from the database.
+     * Prefix filters are resolved by range scans of the lower-cased column indexes.
+     * Filters are trimmed and lower-cased, and pages are cached per normalized
+     * {@link SearchKey} of the current product set version. Concurrent misses
+     * for the same key run the search once and share its result.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @param match how the filters are matched
+     * @param after optional cursor returned with the previous page
+     * @param limit maximum number of products on the page
+     * @return the requested page of product responses
+     */
+    @Cacheable(cacheNames = SEARCH_CACHE,
+            key = "#root.target.searchKey(#code, #name, #match, #after, #limit)",
+            condition = "!T(com.example.productapi.config.ReadRouting).isPrimaryRequired()", sync = true)
+    @Transactional(readOnly = true)
+    public ProductPage findProducts(String code, String name, SearchMatch match, String after, int limit) {
+        validateSearch(code, name, match, after, limit);
+        code = SearchKey.normalize(code);
+        name = SearchKey.normalize(name);
+        if (isKeyset(code, name, match)) {
+            return findByPrefix(code, name, ProductPage.decodeKeyCursor(after), limit);
+        }
+        long afterId = ProductPage.decodeCursor(after);
+        Limit fetch = Limit.of(limit + 1);
+
+        List<ProductResponse> list;
+        long[] candidates = match == SearchMatch.CONTAINS ? searchIndex.candidates(code, name) : null;
+        if (candidates != null) list = hydrate(candidates, code, name, afterId, limit + 1);
+        else if (code != null && name != null) list = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCase(code, name, afterId, fetch);
+        else if (code != null) list = productRepository.findByCodeContainsIgnoreCase(code, afterId, fetch);
+        else if (name != null) list = productRepository.findByNameContainsIgnoreCase(name, afterId, fetch);
+        else list = productRepository.findByIdGreaterThanOrderById(afterId, fetch);
+
+        List<ProductResponse> items = list.size() > limit ? list.subList(0, limit) : list;
+        String next = list.size() > limit ? ProductPage.encodeCursor(items.get(items.size() - 1).id()) : null;
+        return new ProductPage(items, next);
     }
 
     /**
-     * Searches for products by code, name, both, or returns all.
+     * Checks the arguments of {@link #findProducts(String, String, SearchMatch, String, int)}
+     * without running the search, so callers can reject them before answering from a cache.
      *
      * @param code optional code filter
      * @param name optional name filter
-     * @return list of product responses
+     * @param match whether the filters match anywhere or at the start of the value
+     * @param after optional cursor returned with the previous page
+     * @param limit maximum number of products on the page
+     * @throws IllegalArgumentException if the limit is out of range or the cursor is invalid
      */
-    public List<ProductResponse> findProducts(String code, String name) {
-        List<Product> list;
-        if (code != null && name != null) list = productRepository.findByCodeContainsIgnoreCaseAndNameContainsIgnoreCase(code, name);
-        else if (code != null) list = productRepository.findByCodeContainsIgnoreCase(code);
-        else if (name != null) list = productRepository.findByNameContainsIgnoreCase(name);
-        else list = productRepository.findAll();
-        return list.stream().map(p -> new ProductResponse(p.getId(), p.getCode(), p.getName(), p.getPriceEur(), p.getPriceUsd(), p.getDescription())).collect(Collectors.toList());
+    public static void validateSearch(String code, String name, SearchMatch match, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (isKeyset(SearchKey.normalize(code), SearchKey.normalize(name), match)) {
+            ProductPage.decodeKeyCursor(after);
+        } else {
+            ProductPage.decodeCursor(after);
+        }
     }
 
     /**
-     * Returns the top 3 products with the highest average rating.
+     * Prefix searches are paged by lookup column and id rather than by id alone.
+     */
+    private static boolean isKeyset(String code, String name, SearchMatch match) {
+        return match == SearchMatch.PREFIX && (code != null || name != null);
+    }
+
+    /**
+     * Searches products by free text, most relevant first, one page at a time.
+     * Until the full-text index is built, falls back to products whose name contains
+     * the text, in id order, paged with the same offset cursor.
      *
+     * @param text free-text query
+     * @param after optional cursor returned with the previous page
+     * @param limit maximum number of products on the page
+     * @return the requested page of product responses
+     */
+    @Transactional(readOnly = true)
+    public ProductPage searchProducts(String text, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        int offset = ProductPage.decodeOffsetCursor(after);
+        long[] ranked = textIndex.search(text, offset, limit + 1);
+        if (ranked == null) {
+            int fetch = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit + 1);
+            List<ProductResponse> list = productRepository.findByNameContainsIgnoreCase(text.trim(), 0L, Limit.of(fetch));
+            if (list.size() <= offset) return new ProductPage(List.of(), null);
+            int end = Math.min(list.size(), offset + limit);
+            String next = list.size() > end ? ProductPage.encodeOffsetCursor(end) : null;
+            return new ProductPage(list.subList(offset, end), next);
+        }
+
+        int count = Math.min(ranked.length, limit);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(ranked[i]);
+        }
+        Map<Long, ProductResponse> byId = new HashMap<>();
+        productRepository.findResponsesByIds(ids).forEach(p -> byId.put(p.id(), p));
+        List<ProductResponse> items = new ArrayList<>(count);
+        for (Long id : ids) {
+            ProductResponse p = byId.get(id);
+            if (p != null) items.add(p);
+        }
+        String next = ranked.length > limit ? ProductPage.encodeOffsetCursor(offset + limit) : null;
+        return new ProductPage(items, next);
+    }
+
+    /**
+     * Streams every product matching the optional filters to the given sink,
+     * ordered by id. Rows are projected straight into responses and never enter
+     * the persistence context, so memory use does not depend on the size of the catalog.
+     * Filters are normalized like {@link #findProducts}, so both formats list the same products.
+     *
+     * @param code optional code filter
+     * @param name optional name filter
+     * @param sink consumer receiving each product response
+     */
+    @Transactional(readOnly = true)
+    public void streamProducts(String code, String name, Consumer<ProductResponse> sink) {
+        try (Stream<ProductResponse> rows = productRepository.streamMatching(
+                SearchKey.normalize(code), SearchKey.normalize(name))) {
+            rows.forEach(sink);
+        }
+    }
+
+    private List<ProductResponse> hydrate(long[] candidates, String code, String name, long afterId, int max) {
+        String c = code == null ? null : code.toLowerCase(Locale.ROOT);
+        String n = name == null ? null : name.toLowerCase(Locale.ROOT);
+        int start = Arrays.binarySearch(candidates, afterId);
+        start = start >= 0 ? start + 1 : -start - 1;
+
+        List<ProductResponse> matches = new ArrayList<>();
+        for (int from = start; from < candidates.length && matches.size() < max; from += HYDRATE_BATCH) {
+            List<Long> ids = new ArrayList<>(HYDRATE_BATCH);
+            for (int i = from; i < Math.min(from + HYDRATE_BATCH, candidates.length); i++) {
+                ids.add(candidates[i]);
+            }
+            for (ProductResponse p : productRepository.findResponsesByIds(ids)) {
+                if ((c == null || p.code().toLowerCase(Locale.ROOT).contains(c))
+                        && (n == null || p.name().toLowerCase(Locale.ROOT).contains(n))) {
+                    matches.add(p);
+                    if (matches.size() == max) break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Walks the prefix range of the code (or, without a code, the name) index in
+     * (lookup column, id) order from the cursor position, checking the remaining filter
+     * on the rows. Every batch resumes the range scan where the previous one stopped.
+     */
+    private ProductPage findByPrefix(String code, String name, ProductPage.KeyCursor after, int limit) {
+        boolean byCode = code != null;
+        String prefix = byCode ? code : name;
+        String to = prefixEnd(prefix);
+        boolean resume = after != null && after.key().compareTo(prefix) >= 0;
+        String from = resume ? after.key() : prefix;
+        long afterId = resume ? after.id() : 0L;
+
+        List<ProductResponse> matches = new ArrayList<>();
+        while (matches.size() <= limit) {
+            List<ProductResponse> batch = byCode
+                    ? productRepository.findByCodeRange(from, to, afterId, Limit.of(HYDRATE_BATCH))
+                    : productRepository.findByNameRange(from, to, afterId, Limit.of(HYDRATE_BATCH));
+            for (ProductResponse p : batch) {
+                if (!byCode || name == null || p.name().toLowerCase(Locale.ROOT).startsWith(name)) {
+                    matches.add(p);
+                    if (matches.size() > limit) break;
+                }
+            }
+            if (batch.size() < HYDRATE_BATCH) break;
+            ProductResponse last = batch.get(batch.size() - 1);
+            from = lookupKey(last, byCode);
+            afterId = last.id();
+        }
+
+        if (matches.size() <= limit) return new ProductPage(matches, null);
+        List<ProductResponse> items = matches.subList(0, limit);
+        ProductResponse last = items.get(limit - 1);
+        return new ProductPage(items, ProductPage.encodeKeyCursor(lookupKey(last, byCode), last.id()));
+    }
+
+    private static String lookupKey(ProductResponse p, boolean byCode) {
+        return (byCode ? p.code() : p.name()).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the smallest string greater than every string starting with the prefix.
+     */
+    static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char ch = prefix.charAt(i);
+            if (ch != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (ch + 1);
+            }
+        }
+        return prefix + Character.MAX_VALUE;
+    }
+
+    private ProductResponse toResponse(Product p) {
+        return new ProductResponse(p.getId(), p.getCode(), p.getName(), p.getPriceEur(), p.getPriceUsd(), p.getDescription());
+    }
+
+    /**
+     * Returns the products with the highest average rating.
+     * Without a review threshold the result is served from the in-memory
+     * popularity ranking; otherwise the database returns only the requested rows.
+     * Results are cached per (limit, minReviews) until the next review is written;
+     * concurrent misses for the same pair compute the list once. Invalid arguments
+     * throw before anything is cached, and a threshold of 0 shares the entry of 1.
+     *
+     * @param limit maximum number of products to return
+     * @param minReviews minimum number of reviews a product needs to be listed
      * @return list of PopularProductDto (name + rating)
      */
-    public List<PopularProductDto> findTop3Popular() {
-        List<PopularProductDto> avgs = reviewRepository.findAverageRatingsPerProduct();
-        return avgs.stream().limit(3).map(p -> new PopularProductDto(p.getName(), round(p.getAverageRating(), 1))).collect(Collectors.toList());
+    @Cacheable(cacheNames = POPULAR_CACHE, key = "#limit + ':' + T(java.lang.Math).max(#minReviews, 1)",
+            condition = "!T(com.example.productapi.config.ReadRouting).isPrimaryRequired()", sync = true)
+    @Transactional(readOnly = true)
+    public List<PopularProductDto> findPopular(int limit, int minReviews) {
+        validatePopular(limit, minReviews);
+        List<ProductRating> top = minReviews <= 1 ? popularityRanking.top(limit) : null;
+        if (top == null) top = productRepository.findTopRated(Math.max(minReviews, 1), Limit.of(limit));
+        return top.stream().map(r -> new PopularProductDto(r.name(), roundedAverage(r))).collect(Collectors.toList());
     }
 
-    private double round(Double value, int decimals) {
-        if (value == null) return 0.0;
-        BigDecimal bd = BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP);
-        return bd.doubleValue();
+    /**
+     * Checks the arguments of {@link #findPopular(int, int)} without reading the ranking.
+     *
+     * @param limit maximum number of products to return
+     * @param minReviews minimum number of reviews a product needs to be listed
+     * @throws IllegalArgumentException if either argument is out of range
+     */
+    public static void validatePopular(int limit, int minReviews) {
+        if (limit < 1 || limit > MAX_POPULAR) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_POPULAR);
+        }
+        if (minReviews < 0 || minReviews > MAX_MIN_REVIEWS) {
+            throw new IllegalArgumentException("minReviews must be between 0 and " + MAX_MIN_REVIEWS);
+        }
     }
 
     /**
-     * Adds a review to the given product.
+     * Rounds the average rating half-up to one decimal, computed exactly from the integer aggregates.
+     */
+    private static double roundedAverage(ProductRating rating) {
+        if (rating.ratingCount() == 0) return 0.0;
+        long tenths = (20 * rating.ratingSum() + rating.ratingCount()) / (2 * rating.ratingCount());
+        return tenths / 10.0;
+    }
+
+    /**
+     * Adds a review to the given product and updates its rating aggregates.
      *
      * @param product the product being reviewed
      * @param reviewer the reviewer’s name
      * @param text the review text
      * @param rating the rating (1–5)
      */
+    @CacheEvict(cacheNames = POPULAR_CACHE, allEntries = true)
     @Transactional
     public void addReview(Product product, String reviewer, String text, int rating) {
         Review r = new Review(product, reviewer, text, rating);
         r.setProduct(product);
         reviewRepository.save(r);
+        Map<Long, long[]> totals = Map.of(product.getId(), new long[]{rating, 1});
+        List<ProductRating> ratings = addRatings(totals);
+        TransactionHooks.afterCommit(() -> {
+            ratings.forEach(popularityRanking::update);
+            catalogVersion.bumpRatings();
+        });
+    }
+
+    /**
+     * Writes a batch of queued reviews and adds their ratings to the product aggregates.
+     * Reviews are inserted in JDBC batches and each product's aggregates are updated
+     * once per batch, however many of its reviews the batch contains.
+     *
+     * @param pending reviews to write
+     */
+    @CacheEvict(cacheNames = POPULAR_CACHE, allEntries = true)
+    @Transactional
+    public void addReviews(List<PendingReview> pending) {
+        Map<Long, long[]> totals = new LinkedHashMap<>();
+        for (PendingReview r : pending) {
+            long[] total = totals.computeIfAbsent(r.productId(), id -> new long[2]);
+            total[0] += r.rating();
+            total[1]++;
+        }
+        List<ProductRating> ratings = addRatings(totals);
+        List<Review> reviews = new ArrayList<>(pending.size());
+        for (PendingReview r : pending) {
+            Product product = entityManager.getReference(Product.class, r.productId());
+            reviews.add(new Review(product, r.reviewer(), r.text(), r.rating()));
+        }
+        reviewRepository.saveAll(reviews);
+        TransactionHooks.afterCommit(() -> {
+            ratings.forEach(popularityRanking::update);
+            catalogVersion.bumpRatings();
+        });
+    }
+
+    /**
+     * Adds rating totals to the locked, managed products, so only their
+     * second-level cache entries change.
+     *
+     * @param totals sum and count of the added ratings per product id
+     * @return the updated aggregates
+     */
+    private List<ProductRating> addRatings(Map<Long, long[]> totals) {
+        List<ProductRating> ratings = new ArrayList<>(totals.size());
+        for (Product p : productRepository.findAllForRatingUpdate(totals.keySet())) {
+            long[] total = totals.get(p.getId());
+            p.addRatings(total[0], total[1]);
+            ratings.add(new ProductRating(p.getId(), p.getName(), p.getRatingSum(), p.getRatingCount()));
+        }
+        return ratings;
+    }
+
+    /**
+     * Recomputes the rating aggregates of a range of products from their reviews.
+     *
+     * @param fromId inclusive lower bound for the product id
+     * @param toId inclusive upper bound for the product id
+     * @return number of updated products
+     */
+    @Transactional
+    public int recomputeRatingAggregates(long fromId, long toId) {
+        TransactionHooks.afterCommit(catalogVersion::bump);
+        return productRepository.recomputeRatings(fromId, toId);
+    }
+
+    /**
+     * Recomputes the stored USD prices of a range of products with the given rate.
+     * The {@value #PRODUCT_CACHE} near-cache is cleared only if a price changed.
+     *
+     * @param usdRate EUR→USD rate
+     * @param fromId inclusive lower bound for the product id
+     * @param toId inclusive upper bound for the product id
+     * @return number of updated products
+     */
+    @CacheEvict(cacheNames = PRODUCT_CACHE, allEntries = true, condition = "#result > 0")
+    @Transactional
+    public int repriceUsd(BigDecimal usdRate, long fromId, long toId) {
+        int updated = productRepository.repriceUsd(usdRate, fromId, toId);
+        if (updated > 0) {
+            TransactionHooks.afterCommit(() -> {
+                searchResultCache.invalidateAll();
+                catalogVersion.bumpProducts();
+            });
+        }
+        return updated;
+    }
+
+    /**
+     * Returns a function rendering product prices in the requested currency,
+     * using one snapshot of the current HNB rate table. No I/O is performed.
+     *
+     * @param currency ISO 4217 currency code, or {@code null} to keep the stored prices only
+     * @return function adding the converted price to a product response
+     * @throws IllegalArgumentException if the currency is not in the rate table
+     */
+    public UnaryOperator<ProductResponse> pricesIn(String currency) {
+        if (currency == null || currency.isBlank()) return UnaryOperator.identity();
+        String code = currency.trim().toUpperCase(Locale.ROOT);
+        BigDecimal rate = hnbService.getRateTable().rate(code);
+        if (rate == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        Price fixedRate = Price.of(rate);
+        int scale = RateTable.fractionDigits(code);
+        return p -> p.withPrice(code, p.priceEur() == null ? null : p.priceEur().convert(fixedRate, scale));
     }
 }
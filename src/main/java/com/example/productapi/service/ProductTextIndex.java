@@ -0,0 +1,269 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene full-text index over product codes, names and descriptions.
+ *
+ * <p>Query text is tokenized with the standard analyzer. Every token must match
+ * the name, the start of the code, or the description; name matches rank highest,
+ * and tokens of four or more characters also match names within one or two edits,
+ * so small typos still find the product. Ties are broken by product id.</p>
+ *
+ * <p>The index lives in memory, or on local disk (memory-mapped) when
+ * {@code product.search.index-dir} is set. It is filled on startup by
+ * {@link CatalogWarmup} and updated as products are written; a background thread reopens the
+ * searcher, so new products become searchable within a second.</p>
+ *
+ * <p>Until the startup rebuild has finished, {@link #search(String, int, int)}
+ * returns {@code null} and the caller falls back to the database.</p>
+ */
+@Slf4j
+@Component
+public class ProductTextIndex implements DisposableBean {
+
+    /**
+     * Largest number of ranked results that can be paged through.
+     */
+    public static final int MAX_RESULTS = 10_000;
+
+    static final String ID = "id";
+    static final String ID_SORT = "id_sort";
+    static final String CODE = "code";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    private static final int MAX_TOKENS = 16;
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final Sort RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(ID_SORT, SortField.Type.LONG));
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Directory directory;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private volatile boolean ready;
+
+    public ProductTextIndex(ProductRepository productRepository, TransactionTemplate transactionTemplate,
+                            @Value("${product.search.index-dir:}") String indexDir) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        try {
+            this.directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+            this.writer = new IndexWriter(directory,
+                    new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open product text index", ex);
+        }
+        this.reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, 1.0, 0.025);
+        reopenThread.setName("product-text-index-reopen");
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    /**
+     * Reindexes every product from the database.
+     * Adds replace documents by id, so writes that race with the rebuild are safe.
+     */
+    public void rebuild() {
+        try {
+            writer.deleteAll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Clearing the product text index failed", ex);
+        }
+        loadAfter(0);
+    }
+
+    /**
+     * Indexes the products with an id above {@code after}, commits and starts answering queries.
+     * Used to catch up with the database after the index was filled from a snapshot.
+     *
+     * @param after exclusive lower bound for the product id
+     */
+    public void loadAfter(long after) {
+        long started = System.nanoTime();
+        int[] total = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductResponse> rows = productRepository.streamAfter(after)) {
+                    rows.forEach(p -> {
+                        add(p.id(), p.code(), p.name(), p.description());
+                        total[0]++;
+                    });
+                }
+            });
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Loading the product text index failed", ex);
+        }
+        ready = true;
+        log.info("Product text index loaded {} products in {} ms",
+                total[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Adds or replaces a product in the index. It becomes searchable on the next reopen.
+     *
+     * @param id          product id
+     * @param code        product code
+     * @param name        product name
+     * @param description optional description
+     */
+    public void add(Long id, String code, String name, String description) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, id.toString(), Field.Store.NO));
+        doc.add(new NumericDocValuesField(ID_SORT, id));
+        doc.add(new StringField(CODE, code.toLowerCase(Locale.ROOT), Field.Store.NO));
+        doc.add(new TextField(NAME, name, Field.Store.NO));
+        if (description != null) {
+            doc.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(ID, id.toString()), doc);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Indexing product " + id + " failed", ex);
+        }
+    }
+
+    /**
+     * Returns the ids of the products best matching the query text.
+     *
+     * @param text   free-text query
+     * @param offset number of ranked results to skip
+     * @param count  maximum number of ids to return
+     * @return ids ordered by relevance, or {@code null} if the index is not built yet
+     * @throws IllegalArgumentException if {@code offset + count} exceeds {@link #MAX_RESULTS}
+     */
+    public long[] search(String text, int offset, int count) {
+        if ((long) offset + count > MAX_RESULTS) {
+            throw new IllegalArgumentException("Cannot page beyond " + MAX_RESULTS + " search results");
+        }
+        if (!ready) return null;
+        Query query = toQuery(text);
+        if (query == null) return new long[0];
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(query, offset + count, RELEVANCE).scoreDocs;
+                int from = Math.min(offset, hits.length);
+                long[] ids = new long[hits.length - from];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = (Long) ((FieldDoc) hits[from + i]).fields[1];
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Product text search failed", ex);
+        }
+    }
+
+    /**
+     * Indicates whether the startup rebuild has completed.
+     *
+     * @return true once the index can answer queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Makes every write so far visible to searches. Used by tests and benchmarks.
+     */
+    void refresh() {
+        try {
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        reopenThread.close();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    Query toQuery(String text) {
+        List<String> tokens = tokens(text);
+        if (tokens.isEmpty()) return null;
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            BooleanQuery.Builder any = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(NAME, token)), 4f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(CODE, token)), 3f), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(DESCRIPTION, token)), BooleanClause.Occur.SHOULD);
+            if (token.length() >= FUZZY_MIN_LENGTH) {
+                int edits = token.length() >= 8 ? 2 : 1;
+                any.add(new FuzzyQuery(new Term(NAME, token), edits), BooleanClause.Occur.SHOULD);
+            }
+            all.add(any.build(), BooleanClause.Occur.MUST);
+        }
+        return all.build();
+    }
+
+    private List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        try (TokenStream stream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (tokens.size() < MAX_TOKENS && stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.Price;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the HNB exchange rate list.
+ *
+ * <p>Rates are middle rates in units of the currency per one EUR, keyed by
+ * ISO 4217 code. EUR itself is always present with a rate of 1. A table is
+ * never modified after construction, so a reference to it can be shared
+ * freely and replaced atomically on refresh.</p>
+ *
+ * @param date  date the rates apply to, or {@code null} for the fallback table
+ * @param rates rates per currency code
+ */
+public record RateTable(LocalDate date, Map<String, BigDecimal> rates) {
+
+    /**
+     * Currency that product prices are stored in.
+     */
+    public static final String BASE_CURRENCY = "EUR";
+
+    public RateTable {
+        Map<String, BigDecimal> copy = new HashMap<>(rates);
+        copy.put(BASE_CURRENCY, BigDecimal.ONE);
+        rates = Map.copyOf(copy);
+    }
+
+    /**
+     * Returns the rate of a currency.
+     *
+     * @param currency ISO 4217 currency code, case-insensitive
+     * @return units of the currency per one EUR, or {@code null} if unknown
+     */
+    public BigDecimal rate(String currency) {
+        return currency == null ? null : rates.get(currency.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Converts an EUR amount, rounded half-up to the currency's minor unit.
+     *
+     * @param amountEur amount in EUR, may be {@code null}
+     * @param currency  ISO 4217 currency code, case-insensitive
+     * @return converted amount, or {@code null} if the amount is {@code null}
+     * @throws IllegalArgumentException if the currency is not in the table
+     */
+    public BigDecimal convert(BigDecimal amountEur, String currency) {
+        BigDecimal rate = rate(currency);
+        if (rate == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        if (amountEur == null) return null;
+        return Price.convert(amountEur, rate, fractionDigits(currency));
+    }
+
+    /**
+     * Returns the number of minor-unit digits used for a currency, 2 if not known to the JDK.
+     *
+     * @param currency ISO 4217 currency code
+     * @return fraction digits
+     */
+    static int fractionDigits(String currency) {
+        try {
+            int digits = Currency.getInstance(currency.toUpperCase(Locale.ROOT)).getDefaultFractionDigits();
+            return digits < 0 ? 2 : digits;
+        } catch (IllegalArgumentException ex) {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.productapi.service;
+
+/**
+ * Published by {@link HnbService} when a refresh yields rates that differ from the previous table.
+ *
+ * @param previous rate table before the refresh, or {@code null} on the first successful fetch
+ * @param current  newly fetched rate table
+ */
+public record RateTableChangedEvent(RateTable previous, RateTable current) {
+}
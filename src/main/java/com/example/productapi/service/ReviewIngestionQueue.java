@@ -0,0 +1,187 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ReviewRequest;
+import com.example.productapi.exception.ProductNotFoundException;
+import com.example.productapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for incoming reviews.
+ *
+ * <p>Reviews are accepted into a bounded in-memory queue and written by a single
+ * background thread, which drains up to {@code batch-size} reviews at a time and
+ * hands them to {@link ProductService#addReviews(List)}: one transaction, one JDBC
+ * batch of inserts and one aggregate update per product. When the queue is full,
+ * new reviews are rejected with {@link TooManyRequestsException}.</p>
+ *
+ * <p>The product id is resolved with {@link ProductService#productIdOf(String)}, so
+ * accepting a review for a code the code index knows takes no query.</p>
+ *
+ * <p>On shutdown the queue stops accepting reviews and the writer drains what is
+ * left before the data source is closed. The lifecycle phase is lower than the web
+ * server's, so in-flight requests have finished submitting by then.</p>
+ *
+ * <p>Queue depth is published as {@code reviews.queue.depth}, batch write latency
+ * as {@code reviews.flush}, and written, rejected and failed reviews as counters.</p>
+ */
+@Slf4j
+@Component
+public class ReviewIngestionQueue implements SmartLifecycle {
+
+    private final ProductService productService;
+    private final BlockingQueue<PendingReview> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writer;
+
+    public ReviewIngestionQueue(ProductService productService,
+                                @Value("${product.reviews.queue-capacity:10000}") int capacity,
+                                @Value("${product.reviews.batch-size:500}") int batchSize,
+                                @Value("${product.reviews.flush-interval:PT0.2S}") Duration flushInterval,
+                                @Value("${product.reviews.shutdown-timeout:PT30S}") Duration shutdownTimeout,
+                                MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+        Gauge.builder("reviews.queue.depth", queue, BlockingQueue::size)
+                .description("Reviews accepted but not yet written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("reviews.flush")
+                .description("Latency of writing one batch of reviews")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("reviews.written")
+                .description("Reviews written to the database")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("reviews.rejected")
+                .description("Reviews rejected because the queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("reviews.failed")
+                .description("Reviews that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accepts a review for the product with the given code.
+     *
+     * @param code    product code
+     * @param request review to add
+     * @throws ProductNotFoundException if no product has the given code
+     * @throws TooManyRequestsException if the queue is full or shutting down
+     */
+    public void submit(String code, ReviewRequest request) {
+        PendingReview review = new PendingReview(productService.productIdOf(code), request.getReviewer(),
+                request.getText(), request.getRating());
+        if (!accepting || !queue.offer(review)) {
+            rejectedCounter.increment();
+            throw new TooManyRequestsException("Review queue is full, try again later", flushInterval);
+        }
+    }
+
+    /**
+     * Returns the number of reviews waiting to be written.
+     *
+     * @return queue depth
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+        running = true;
+        writer = Thread.ofPlatform().name("review-writer").start(this::drainLoop);
+    }
+
+    @Override
+    public void stop() {
+        accepting = false;
+        running = false;
+        if (writer == null) return;
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive() || !queue.isEmpty()) {
+            log.warn("Review writer did not drain in {}, {} reviews were not written", shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the web server (DEFAULT_PHASE - 2048) has stopped accepting requests
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingReview first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Interrupted: write what is left without blocking
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+        log.info("Review writer stopped");
+    }
+
+    private void flush(List<PendingReview> batch) {
+        try {
+            flushTimer.record(() -> productService.addReviews(batch));
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException ex) {
+            log.warn("Writing a batch of {} reviews failed, retrying one by one", batch.size(), ex);
+            for (PendingReview review : batch) {
+                try {
+                    productService.addReviews(List.of(review));
+                    writtenCounter.increment();
+                } catch (RuntimeException single) {
+                    failedCounter.increment();
+                    log.error("Dropping review of product {} by {}", review.productId(), review.reviewer(), single);
+                }
+            }
+        }
+    }
+}
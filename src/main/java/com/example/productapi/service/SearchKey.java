@@ -0,0 +1,45 @@
+package com.example.productapi.service;
+
+import java.util.Locale;
+
+/**
+ * Cache key of one product search page, with the code and name filters normalized
+ * (trimmed, lower-cased, blank as absent) so equivalent requests share an entry.
+ * The product set version is part of the key, so a page loaded before a product
+ * change was committed can never be served after it.
+ *
+ * @param version product set version the page was requested at
+ * @param code  normalized code filter, or {@code null}
+ * @param name  normalized name filter, or {@code null}
+ * @param match how the filters are matched
+ * @param after cursor of the previous page, or {@code null}
+ * @param limit page size
+ */
+public record SearchKey(long version, String code, String name, SearchMatch match, String after, int limit) {
+
+    /**
+     * Builds the key for a search request.
+     *
+     * @param version current product set version
+     * @param code  raw code filter
+     * @param name  raw name filter
+     * @param match how the filters are matched
+     * @param after cursor of the previous page
+     * @param limit page size
+     * @return normalized key
+     */
+    public static SearchKey of(long version, String code, String name, SearchMatch match, String after, int limit) {
+        return new SearchKey(version, normalize(code), normalize(name), match, after, limit);
+    }
+
+    /**
+     * Trims and lower-cases a search filter.
+     *
+     * @param filter raw filter
+     * @return normalized filter, or {@code null} if it is absent or blank
+     */
+    public static String normalize(String filter) {
+        if (filter == null || filter.isBlank()) return null;
+        return filter.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.productapi.service;
+
+import java.util.Locale;
+
+/**
+ * How the code and name filters of a product search are matched (case-insensitive).
+ */
+public enum SearchMatch {
+
+    /**
+     * The filter text may appear anywhere in the value.
+     */
+    CONTAINS,
+
+    /**
+     * The value starts with the filter text; answered with an index range scan.
+     */
+    PREFIX;
+
+    /**
+     * Parses a match mode name, ignoring case.
+     *
+     * @param value mode name, or {@code null} for {@link #CONTAINS}
+     * @return the match mode
+     * @throws IllegalArgumentException if the name is not a known mode
+     */
+    public static SearchMatch parse(String value) {
+        if (value == null || value.isBlank()) return CONTAINS;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("match must be 'contains' or 'prefix'");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.productapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidation and metrics for the {@value ProductService#SEARCH_CACHE} cache, which holds
+ * search pages per {@link SearchKey}.
+ *
+ * <p>Keys carry the product set version, so once a product is created or rewritten and the
+ * version bumped, earlier pages are no longer looked up and age out by size and TTL. Reviews
+ * leave the version, and so the cached pages, alone. Bulk imports and repricing clear the
+ * whole cache to free that memory at once.</p>
+ *
+ * <p>The hit ratio is published as {@code cache.hit.ratio{cache=productSearch}}.</p>
+ */
+@Component
+public class SearchResultCache {
+
+    private final Cache cache;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache;
+
+    @SuppressWarnings("unchecked")
+    public SearchResultCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(ProductService.SEARCH_CACHE);
+        this.nativeCache = (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache.getNativeCache();
+        Gauge.builder("cache.hit.ratio", nativeCache, c -> c.stats().hitRate())
+                .tag("cache", ProductService.SEARCH_CACHE)
+                .description("Share of search requests answered from the search result cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Evicts every cached page.
+     */
+    public void invalidateAll() {
+        cache.invalidate();
+    }
+}
@@ -0,0 +1,32 @@
+-- Schema used by the prod profile instead of Hibernate's ddl-auto: update.
+-- Keep in sync with the Product and Review entities.
+
+create sequence if not exists product_seq start with 1 increment by 50;
+create sequence if not exists review_seq start with 1 increment by 50;
+
+create table if not exists product (
+    id             bigint         not null primary key,
+    code           varchar(15)    not null,
+    code_lc        varchar(15)    not null,
+    name           varchar(255)   not null,
+    name_lc        varchar(255)   not null,
+    price_eur      numeric(38, 2),
+    price_usd      numeric(38, 2),
+    description    varchar(255),
+    rating_sum     bigint         not null,
+    rating_count   bigint         not null,
+    rating_average float(53)      not null,
+    constraint uk_product_code unique (code)
+);
+
+create index if not exists idx_product_rating_average on product (rating_average desc, rating_count desc);
+create index if not exists idx_product_code_lc on product (code_lc, id);
+create index if not exists idx_product_name_lc on product (name_lc, id);
+
+create table if not exists review (
+    id         bigint       not null primary key,
+    product_id bigint       references product (id),
+    reviewer   varchar(255),
+    text       varchar(255),
+    rating     integer      check (rating between 1 and 5)
+);
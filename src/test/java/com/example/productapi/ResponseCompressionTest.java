@@ -0,0 +1,60 @@
+package com.example.productapi;
+
+import com.example.productapi.dto.ProductRequest;
+import com.example.productapi.service.ProductImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks against the embedded server that large catalog responses are gzipped,
+ * which MockMvc cannot show, and that their ETag still answers conditional requests.
+ */
+class ResponseCompressionTest {
+
+    @Test
+    void largeSearchResponsesAreCompressed() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:compression;DB_CLOSE_DELAY=-1",
+                        "hnb.api-url=http://127.0.0.1:9/unavailable")
+                .run()) {
+            context.getBean(ProductImportService.class).importProducts(IntStream.rangeClosed(1, 100)
+                    .mapToObj(i -> new ProductRequest("GZIP%011d".formatted(i), "Compressed product " + i,
+                            BigDecimal.TEN, "Description of compressed product " + i))
+                    .iterator());
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create(base + "/api/products?code=GZIP&limit=100");
+
+            HttpResponse<byte[]> compressed = client.send(HttpRequest.newBuilder(uri)
+                    .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+
+            assertThat(compressed.statusCode()).isEqualTo(200);
+            assertThat(compressed.headers().firstValue("Content-Encoding")).hasValue("gzip");
+            String etag = compressed.headers().firstValue("ETag").orElseThrow();
+            assertThat(etag).startsWith("W/");
+            try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(compressed.body()))) {
+                assertThat(new String(body.readAllBytes())).contains("GZIP00000000100");
+            }
+
+            HttpResponse<Void> revalidated = client.send(HttpRequest.newBuilder(uri)
+                    .header("Accept-Encoding", "gzip").header("If-None-Match", etag).build(),
+                    HttpResponse.BodyHandlers.discarding());
+
+            assertThat(revalidated.statusCode()).isEqualTo(304);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.productapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application with the prod profile on a random port and measures the time
+ * until the first API request is answered. The JVM is already warm from other tests,
+ * so this guards against startup regressions rather than measuring a cold start.
+ * The budget can be changed with {@code -Dstartup.max-millis}.
+ */
+class StartupTimeTest {
+
+    private static final Duration MAX_TIME_TO_FIRST_REQUEST =
+            Duration.ofMillis(Long.getLong("startup.max-millis", 15_000));
+
+    @Test
+    void prodProfileAnswersFirstRequestWithinBudget() throws Exception {
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductApiApplication.class)
+                .profiles("prod")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                        "hnb.api-url=http://127.0.0.1:9/unavailable")
+                .run()) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newHttpClient();
+
+            HttpResponse<String> first = client.send(HttpRequest.newBuilder(URI.create(base + "/api/products?limit=1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Duration timeToFirstRequest = Duration.ofNanos(System.nanoTime() - started);
+
+            assertThat(first.statusCode()).isEqualTo(200);
+            assertThat(timeToFirstRequest).isLessThan(MAX_TIME_TO_FIRST_REQUEST);
+
+            HttpResponse<String> apiDocs = client.send(HttpRequest.newBuilder(URI.create(base + "/v3/api-docs")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(apiDocs.statusCode()).as("springdoc is disabled").isNotEqualTo(200);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.productapi;
+
+import com.example.productapi.dto.ProductRequest;
+import com.example.productapi.service.HnbService;
+import com.example.productapi.service.ProductService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the service code paths used by the API on virtual threads and checks
+ * with JFR that none of them pins its carrier thread.
+ */
+@SpringBootTest
+@ActiveProfiles("virtual")
+class VirtualThreadPinningTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private HnbService hnbService;
+
+    @Test
+    void testServiceCallsDoNotPinCarrierThreads() throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            List<Future<?>> calls = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    int n = i;
+                    calls.add(executor.submit(() -> {
+                        productService.findProducts(null, "phone", null, 10);
+                        productService.findProducts("PROD", null, null, 10);
+                        productService.findPopular(3, 1);
+                        hnbService.getEurToUsdRate();
+                        productService.createProduct(new ProductRequest(
+                                String.format("VTHR%011d", n), "Virtual " + n, BigDecimal.TEN, null));
+                    }));
+                }
+            }
+            for (Future<?> call : calls) {
+                call.get();
+            }
+            recording.stop();
+        }
+
+        assertThat(pinned).as("virtual thread pinning events").isEmpty();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.productapi.config;
+
+import com.example.productapi.service.ProductService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wires the replica routing the way {@link ReadReplicaConfig} does, against two
+ * in-memory H2 databases that each identify themselves in a {@code marker} table.
+ */
+class ReplicaDataSourceTest {
+
+    private JdbcDataSource primary;
+    private JdbcDataSource replica;
+    private ReplicaDataSource replicaDataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = markedDatabase("routing_primary");
+        replica = markedDatabase("routing_replica");
+        route(Duration.ZERO);
+    }
+
+    private void route(Duration maxLag) {
+        replicaDataSource = new ReplicaDataSource(primary, List.of(replica), maxLag);
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        jdbc = new JdbcTemplate(proxy);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(proxy);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    private static CacheManager caches() {
+        return new CacheConfig().cacheManager(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadRouting.clear();
+        ReadRouting.takeReplicaHorizon();
+        new JdbcTemplate(database("routing_primary")).execute("drop all objects");
+        new JdbcTemplate(database("routing_replica")).execute("drop all objects");
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertThat(readOnly.execute(status -> marker())).isEqualTo("routing_replica");
+    }
+
+    @Test
+    void writeTransactionsUsePrimary() {
+        assertThat(readWrite.execute(status -> marker())).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void readYourWritesUsesPrimary() {
+        ReadRouting.usePrimary();
+
+        assertThat(readOnly.execute(status -> marker())).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void replicasStayInRotationWhileReviewsAreWritten() {
+        route(Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            ReadRouting.ratingsChanged();
+
+            assertThat(readOnly.execute(status -> marker())).isEqualTo("routing_replica");
+        }
+    }
+
+    @Test
+    void replicaReadsRightAfterProductChangeAreNotCached() {
+        route(Duration.ofMinutes(1));
+        Cache search = caches().getCache(ProductService.SEARCH_CACHE);
+        ReadRouting.productsChanged();
+
+        assertThat(search.get("page", () -> readOnly.execute(status -> marker()))).isEqualTo("routing_replica");
+        assertThat(search.get("page")).isNull();
+    }
+
+    @Test
+    void replicaReadsRightAfterRatingChangeAreNotCachedAsPopular() {
+        route(Duration.ofMinutes(1));
+        Cache popular = caches().getCache(ProductService.POPULAR_CACHE);
+        ReadRouting.ratingsChanged();
+
+        assertThat(popular.get("top", () -> readOnly.execute(status -> marker()))).isEqualTo("routing_replica");
+        assertThat(popular.get("top")).isNull();
+    }
+
+    @Test
+    void primaryReadsAreCached() {
+        route(Duration.ofMinutes(1));
+        Cache search = caches().getCache(ProductService.SEARCH_CACHE);
+        ReadRouting.productsChanged();
+
+        assertThat(search.get("page", () -> readWrite.execute(status -> marker()))).isEqualTo("routing_primary");
+        assertThat(search.get("page")).isNotNull();
+    }
+
+    @Test
+    void unhealthyReplicaFallsBackToPrimary() {
+        replica.setURL("jdbc:h2:tcp://127.0.0.1:9/unavailable");
+        replicaDataSource.checkHealth();
+
+        assertThat(replicaDataSource.healthyReplicas()).isZero();
+        assertThat(readOnly.execute(status -> marker())).isEqualTo("routing_primary");
+    }
+
+    @Test
+    void explicitCredentialsAreUsedForReplicaConnections() throws Exception {
+        try (Connection con = replicaDataSource.getConnection("sa", "")) {
+            assertThat(new JdbcTemplate(new SingleConnectionDataSource(con, true))
+                    .queryForObject("select name from marker", String.class)).isEqualTo("routing_replica");
+        }
+    }
+
+    private String marker() {
+        return jdbc.queryForObject("select name from marker", String.class);
+    }
+
+    private static JdbcDataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static JdbcDataSource markedDatabase(String name) {
+        JdbcDataSource dataSource = database(name);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table marker (name varchar(32))");
+        jdbc.update("insert into marker values (?)", name);
+        return dataSource;
+    }
+}
@@ -1,18 +1,43 @@
 package com.example.productapi.controller;
 
+import com.example.productapi.dto.BulkImportResult;
+import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.dto.Price;
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductRequest;
 import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.exception.ApiExceptionHandler;
+import com.example.productapi.exception.ProductNotFoundException;
+import com.example.productapi.exception.TooManyRequestsException;
+import com.example.productapi.service.CatalogVersion;
+import com.example.productapi.service.ProductImportService;
 import com.example.productapi.service.ProductService;
+import com.example.productapi.service.ReviewIngestionQueue;
+import com.example.productapi.service.SearchMatch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -20,11 +45,21 @@ class ProductControllerTest {
 
     private MockMvc mockMvc;
     private ProductService productService;
+    private ProductImportService productImportService;
+    private ReviewIngestionQueue reviewIngestionQueue;
+    private CatalogVersion catalogVersion;
 
     @BeforeEach
     void setUp() {
         productService = Mockito.mock(ProductService.class);
-        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService)).build();
+        productImportService = Mockito.mock(ProductImportService.class);
+        reviewIngestionQueue = Mockito.mock(ReviewIngestionQueue.class);
+        catalogVersion = new CatalogVersion();
+        Mockito.when(productService.pricesIn(any())).thenReturn(UnaryOperator.identity());
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, productImportService,
+                        reviewIngestionQueue, catalogVersion, JsonMapper.builder().build()))
+                .setControllerAdvice(new ApiExceptionHandler())
+                .build();
     }
 
     @Test
@@ -49,19 +84,346 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.name").value("Phone"));
     }
 
+    @Test
+    void testBulkImportJsonArray() throws Exception {
+        List<String> codes = new ArrayList<>();
+        Mockito.when(productImportService.importProducts(any())).thenAnswer(inv -> {
+            Iterator<ProductRequest> rows = inv.getArgument(0);
+            rows.forEachRemaining(r -> codes.add(r.getCode()));
+            return new BulkImportResult(codes.size(), codes.size(), List.of());
+        });
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            [
+                              {"code": "PROD00000000001", "name": "Phone", "priceEur": 100},
+                              {"code": "PROD00000000002", "name": "Laptop", "priceEur": 200}
+                            ]
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+
+        assertEquals(List.of("PROD00000000001", "PROD00000000002"), codes);
+    }
+
+    @Test
+    void testBulkImportNdjson() throws Exception {
+        List<String> codes = new ArrayList<>();
+        Mockito.when(productImportService.importProducts(any())).thenAnswer(inv -> {
+            Iterator<ProductRequest> rows = inv.getArgument(0);
+            rows.forEachRemaining(r -> codes.add(r.getCode()));
+            return new BulkImportResult(codes.size(), codes.size(), List.of());
+        });
+
+        mockMvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("""
+                            {"code": "PROD00000000001", "name": "Phone", "priceEur": 100}
+                            {"code": "PROD00000000002", "name": "Laptop", "priceEur": 200}
+                            """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2));
+
+        assertEquals(List.of("PROD00000000001", "PROD00000000002"), codes);
+    }
+
+    @Test
+    void testAddReviewIsAccepted() throws Exception {
+        mockMvc.perform(post("/api/products/PROD00000000001/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"reviewer": "Alice", "text": "Great", "rating": 5}
+                        """))
+                .andExpect(status().isAccepted());
+
+        Mockito.verify(reviewIngestionQueue).submit(eq("PROD00000000001"), any());
+    }
+
+    @Test
+    void testAddReviewRejectsInvalidRating() throws Exception {
+        mockMvc.perform(post("/api/products/PROD00000000001/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"reviewer": "Alice", "rating": 6}
+                        """))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(reviewIngestionQueue);
+    }
+
+    @Test
+    void testCreateProductRejectsOversizedName() throws Exception {
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"code\": \"PROD00000000001\", \"name\": \"" + "x".repeat(256) + "\", \"priceEur\": 100}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testAddReviewRejectsOversizedText() throws Exception {
+        mockMvc.perform(post("/api/products/PROD00000000001/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"reviewer\": \"Alice\", \"text\": \"" + "x".repeat(256) + "\", \"rating\": 5}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(reviewIngestionQueue);
+    }
+
+    @Test
+    void testAddReviewWhenQueueIsFull() throws Exception {
+        Mockito.doThrow(new TooManyRequestsException("Review queue is full, try again later", Duration.ofSeconds(2)))
+                .when(reviewIngestionQueue).submit(any(), any());
+
+        mockMvc.perform(post("/api/products/PROD00000000001/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"reviewer": "Alice", "rating": 5}
+                        """))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
     @Test
     void testGetProducts() throws Exception {
-        Mockito.when(productService.findProducts(null, null)).thenReturn(List.of());
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100)).thenReturn(new ProductPage(List.of(), null));
 
         mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogVersion.etag("json")))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+                .andExpect(header().doesNotExist(ProductController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetProductsETagDependsOnFormat() throws Exception {
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100)).thenReturn(new ProductPage(List.of(), null));
+        MediaType cbor = MediaType.parseMediaType("application/cbor");
+
+        mockMvc.perform(get("/api/products").accept(cbor).header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(cbor))
+                .andExpect(header().string("ETag", catalogVersion.etag("cbor")));
+        mockMvc.perform(get("/api/products").accept(cbor).header("If-None-Match", catalogVersion.etag("cbor")))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+    }
+
+    @Test
+    void testGetProductsAsCbor() throws Exception {
+        assertBinaryRoundTrip(MediaType.parseMediaType("application/cbor"), CBORMapper.builder().build());
+    }
+
+    @Test
+    void testGetProductsAsSmile() throws Exception {
+        assertBinaryRoundTrip(MediaType.parseMediaType("application/x-jackson-smile"), SmileMapper.builder().build());
+    }
+
+    private void assertBinaryRoundTrip(MediaType mediaType, ObjectMapper mapper) throws Exception {
+        List<ProductResponse> items = List.of(
+                new ProductResponse(1L, "PROD00000000001", "Phone",
+                        new BigDecimal("1299.90"), new BigDecimal("1403.89"), "Desc"),
+                new ProductResponse(2L, "PROD00000000002", "Tablet",
+                        BigDecimal.valueOf(100), BigDecimal.valueOf(110), null));
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100))
+                .thenReturn(new ProductPage(items, null));
+
+        MvcResult result = mockMvc.perform(get("/api/products").accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andExpect(header().string("ETag", catalogVersion.etag(mediaType.getSubtype())))
+                .andReturn();
+
+        assertEquals(items, mapper.readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<ProductResponse>>() {
+                }));
+    }
+
+    @Test
+    void testGetProductsNotModified() throws Exception {
+        mockMvc.perform(get("/api/products").header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isNotModified());
+
+        Mockito.verify(productService, Mockito.never()).findProducts(any(), any(), any(), any(), Mockito.anyInt());
+    }
+
+    @Test
+    void testGetProductsValidatesBeforeNotModified() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "0").header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products").param("after", "bogus").header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetProductsInCurrency() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+        Mockito.when(productService.pricesIn("GBP"))
+                .thenReturn(p -> p.withPrice("GBP", Price.of(new BigDecimal("84.50"))));
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100)).thenReturn(new ProductPage(List.of(resp), null));
+
+        mockMvc.perform(get("/api/products").param("currency", "GBP"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currency").value("GBP"))
+                .andExpect(jsonPath("$[0].price").value(84.50));
+    }
+
+    @Test
+    void testGetProductsOmitsCurrencyByDefault() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100)).thenReturn(new ProductPage(List.of(resp), null));
+
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currency").doesNotExist())
+                .andExpect(jsonPath("$[0].price").doesNotExist());
+    }
+
+    @Test
+    void testGetProductsAfterCatalogChange() throws Exception {
+        String stale = catalogVersion.etag("json");
+        catalogVersion.bump();
+        Mockito.when(productService.findProducts(null, null, SearchMatch.CONTAINS, null, 100)).thenReturn(new ProductPage(List.of(), null));
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogVersion.etag("json")));
+    }
+
+    @Test
+    void testGetProductsPage() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+
+        Mockito.when(productService.findProducts("PROD", null, SearchMatch.CONTAINS, "abc", 1))
+                .thenReturn(new ProductPage(List.of(resp), "next"));
+
+        mockMvc.perform(get("/api/products").param("code", "PROD").param("after", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].code").value("PROD00000000001"));
+    }
+
+    @Test
+    void testGetProductsByPrefix() throws Exception {
+        Mockito.when(productService.findProducts("PROD0000", null, SearchMatch.PREFIX, null, 100))
+                .thenReturn(new ProductPage(List.of(), null));
+
+        mockMvc.perform(get("/api/products").param("code", "PROD0000").param("match", "prefix"))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testGetProductsRejectsUnknownMatch() throws Exception {
+        mockMvc.perform(get("/api/products").param("match", "fuzzy"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testFullTextSearch() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+        Mockito.when(productService.searchProducts("phone", null, 20)).thenReturn(new ProductPage(List.of(resp), "next"));
+
+        mockMvc.perform(get("/api/products/search").param("q", "phone"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].name").value("Phone"));
+    }
+
+    @Test
+    void testGetByCode() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+        Mockito.when(productService.findByCode("PROD00000000001")).thenReturn(resp);
+
+        mockMvc.perform(get("/api/products/PROD00000000001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogVersion.etag("json")))
+                .andExpect(jsonPath("$.name").value("Phone"));
+    }
+
+    @Test
+    void testGetByUnknownCode() throws Exception {
+        Mockito.when(productService.findByCode("NOPE00000000001"))
+                .thenThrow(new ProductNotFoundException("NOPE00000000001"));
+
+        mockMvc.perform(get("/api/products/NOPE00000000001"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetByUnknownCodeIgnoresCurrentETag() throws Exception {
+        Mockito.when(productService.findByCode("NOPE00000000001"))
+                .thenThrow(new ProductNotFoundException("NOPE00000000001"));
+
+        mockMvc.perform(get("/api/products/NOPE00000000001").header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testStreamProducts() throws Exception {
+        ProductResponse resp = new ProductResponse(
+                1L, "PROD00000000001", "Phone",
+                BigDecimal.valueOf(100), BigDecimal.valueOf(110), "Desc");
+
+        Mockito.doAnswer(inv -> {
+            Consumer<ProductResponse> sink = inv.getArgument(2);
+            sink.accept(resp);
+            sink.accept(resp);
+            return null;
+        }).when(productService).streamProducts(any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, body.lines().count());
+    }
+
     @Test
     void testGetPopular() throws Exception {
-        Mockito.when(productService.findTop3Popular()).thenReturn(List.of());
+        Mockito.when(productService.findPopular(3, 1)).thenReturn(List.of());
 
         mockMvc.perform(get("/api/products/popular"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", catalogVersion.etag("json")));
+    }
+
+    @Test
+    void testGetPopularNotModified() throws Exception {
+        mockMvc.perform(get("/api/products/popular").header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isNotModified());
+
+        Mockito.verifyNoInteractions(productService);
+    }
+
+    @Test
+    void testGetPopularValidatesBeforeNotModified() throws Exception {
+        mockMvc.perform(get("/api/products/popular").param("minReviews", "-1")
+                        .header("If-None-Match", catalogVersion.etag("json")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetPopularWithParameters() throws Exception {
+        Mockito.when(productService.findPopular(10, 5))
+                .thenReturn(List.of(new PopularProductDto("Phone", 4.7)));
+
+        mockMvc.perform(get("/api/products/popular").param("limit", "10").param("minReviews", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.popularProducts[0].name").value("Phone"));
     }
 }
@@ -0,0 +1,101 @@
+package com.example.productapi.dto;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    /**
+     * Same fields as {@link ProductResponse} before prices moved to {@link Price}.
+     */
+    record BigDecimalResponse(Long id, String code, String name, BigDecimal priceEur, BigDecimal priceUsd,
+                              String description) {
+    }
+
+    @Test
+    void testConvertMatchesBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() % 10_000_000_000L, random.nextInt(5));
+            BigDecimal rate = BigDecimal.valueOf(random.nextInt(200_000_000), random.nextInt(9));
+            int scale = random.nextInt(4);
+
+            BigDecimal expected = amount.multiply(rate).setScale(scale, RoundingMode.HALF_UP);
+
+            assertEquals(expected, Price.of(amount).convert(Price.of(rate), scale).toBigDecimal(),
+                    () -> amount + " * " + rate);
+        }
+    }
+
+    @Test
+    void testConvertFallsBackOnOverflow() {
+        BigDecimal amount = new BigDecimal("92233720368547.75");
+        BigDecimal rate = new BigDecimal("0.123456");
+
+        assertEquals(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP),
+                Price.convert(amount, rate, 2));
+    }
+
+    @Test
+    void testSerializationIsByteIdentical() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(19));
+
+            assertArrayEquals(objectMapper.writeValueAsBytes(value),
+                    objectMapper.writeValueAsBytes(Price.of(value)), value::toString);
+        }
+    }
+
+    @Test
+    void testResponseSerializationIsByteIdentical() {
+        BigDecimal eur = new BigDecimal("1299.90");
+        BigDecimal usd = new BigDecimal("1403.89");
+
+        byte[] expected = objectMapper.writeValueAsBytes(
+                new BigDecimalResponse(1L, "PROD00000000001", "Phone", eur, usd, "Desc"));
+        byte[] actual = objectMapper.writeValueAsBytes(
+                new ProductResponse(1L, "PROD00000000001", "Phone", eur, usd, "Desc"));
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void testBinarySerializationWritesNumbers() {
+        for (ObjectMapper mapper : List.of(CBORMapper.builder().build(), SmileMapper.builder().build())) {
+            for (String value : List.of("19.99", "100", "-0.05", "1E-7")) {
+                Price price = Price.of(new BigDecimal(value));
+                byte[] bytes = mapper.writeValueAsBytes(price);
+
+                assertTrue(mapper.readTree(bytes).isNumber(), () -> mapper.getClass().getSimpleName() + " " + value);
+                assertEquals(price, mapper.readValue(bytes, Price.class));
+            }
+        }
+    }
+
+    @Test
+    void testEdgeValues() {
+        assertEquals("0.00", Price.of(new BigDecimal("0.00")).toString());
+        assertEquals("-0.05", Price.of(new BigDecimal("-0.05")).toString());
+        assertEquals("1E-7", Price.of(new BigDecimal("0.0000001")).toString());
+        assertEquals("100", Price.of(new BigDecimal("1E+2")).toString());
+        assertEquals("-9223372036854775.808", new Price(Long.MIN_VALUE, 3).toString());
+    }
+
+    @Test
+    void testDeserializesFromNumber() {
+        assertEquals(new Price(1999, 2), objectMapper.readValue("19.99", Price.class));
+    }
+}
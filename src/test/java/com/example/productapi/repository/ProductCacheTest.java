@@ -0,0 +1,113 @@
+package com.example.productapi.repository;
+
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs without a test transaction so that every repository call commits
+ * and the second-level cache sees the same lifecycle as in production.
+ */
+@SpringBootTest
+class ProductCacheTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testFindByIdIsServedFromSecondLevelCache() {
+        Product saved = productRepository.save(product("CACHE0000000001", "Cached phone"));
+
+        productRepository.findById(saved.getId());
+        productRepository.findById(saved.getId());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void testFindByCodeIsServedFromQueryCache() {
+        productRepository.save(product("CACHE0000000002", "Cached laptop"));
+
+        productRepository.findByCode("CACHE0000000002");
+        productRepository.findByCode("CACHE0000000002");
+
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void testSaveInvalidatesCachedSearchResults() {
+        productRepository.save(product("CACHE0000000003", "Invalidated tablet"));
+        assertThat(productRepository.findByNameContainsIgnoreCase("invalidated", 0L, Limit.of(10))).hasSize(1);
+
+        productRepository.save(product("CACHE0000000004", "Invalidated watch"));
+
+        assertThat(productRepository.findByNameContainsIgnoreCase("invalidated", 0L, Limit.of(10)))
+                .extracting(ProductResponse::code)
+                .containsExactly("CACHE0000000003", "CACHE0000000004");
+    }
+
+    @Test
+    void testAddRatingsUpdatesCachedProduct() {
+        Product saved = productRepository.save(product("CACHE0000000005", "Rated camera"));
+        productRepository.findById(saved.getId());
+
+        transactionTemplate.executeWithoutResult(status -> productRepository
+                .findAllForRatingUpdate(List.of(saved.getId()))
+                .forEach(p -> p.addRatings(4, 1)));
+
+        assertThat(productRepository.findById(saved.getId()))
+                .get()
+                .extracting(Product::getRatingCount)
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void testAddRatingsKeepsOtherProductsCached() {
+        Product rated = productRepository.save(product("CACHE0000000006", "Rated lens"));
+        Product other = productRepository.save(product("CACHE0000000007", "Unrated tripod"));
+        productRepository.findById(other.getId());
+        statistics.clear();
+
+        transactionTemplate.executeWithoutResult(status -> productRepository
+                .findAllForRatingUpdate(List.of(rated.getId()))
+                .forEach(p -> p.addRatings(5, 1)));
+        productRepository.findById(other.getId());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    private static Product product(String code, String name) {
+        Product p = new Product();
+        p.setCode(code);
+        p.setName(name);
+        p.setPriceEur(BigDecimal.TEN);
+        return p;
+    }
+}
@@ -1,22 +1,33 @@
 package com.example.productapi.repository;
 
+import com.example.productapi.dto.ProductResponse;
 import com.example.productapi.entity.Product;
+import com.example.productapi.service.ProductCodeConflicts;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.productapi.repository.RecordingStatementInspector")
 @Transactional
 class ProductRepositoryTest {
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void testSaveProduct() {
         Product product = new Product();
@@ -42,4 +53,78 @@ class ProductRepositoryTest {
 
         assertThat(productRepository.findAll()).isNotEmpty();
     }
+
+    @Test
+    void testDuplicateCodeIsReportedAsCodeConflict() {
+        productRepository.saveAndFlush(product("DUPL00000000001", "First"));
+
+        assertThatThrownBy(() -> productRepository.saveAndFlush(product("DUPL00000000001", "Second")))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .matches(ProductCodeConflicts::isDuplicateCode);
+    }
+
+    @Test
+    void testOversizedNameIsNotReportedAsCodeConflict() {
+        assertThatThrownBy(() -> productRepository.saveAndFlush(product("LONG00000000001", "x".repeat(256))))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .matches(ex -> !ProductCodeConflicts.isDuplicateCode(ex));
+    }
+
+    @Test
+    void testSaveMaintainsLowerCasedLookupColumns() {
+        Product product = productRepository.saveAndFlush(product("LOOK00000000001", "Smart Phone"));
+
+        assertThat(product.getCodeLc()).isEqualTo("look00000000001");
+        assertThat(product.getNameLc()).isEqualTo("smart phone");
+    }
+
+    @Test
+    void testFindByCodeRangeMatchesPrefixIgnoringCase() {
+        Product second = productRepository.save(product("RNGE00000000002", "Second"));
+        Product first = productRepository.save(product("RNGE00000000001", "First"));
+        productRepository.save(product("RNGF00000000001", "Other"));
+
+        assertThat(productRepository.findByCodeRange("rnge0", "rnge1", 0L, Limit.of(10)))
+                .extracting(ProductResponse::id)
+                .containsExactly(first.getId(), second.getId());
+    }
+
+    @Test
+    void testFindByNameRangeResumesAfterLookupValueAndId() {
+        Product first = productRepository.save(product("KEYS00000000001", "Keyset"));
+        Product second = productRepository.save(product("KEYS00000000002", "Keyset"));
+        Product third = productRepository.save(product("KEYS00000000003", "Keysets"));
+
+        assertThat(productRepository.findByNameRange("keyset", "keyseu", first.getId(), Limit.of(10)))
+                .extracting(ProductResponse::id)
+                .containsExactly(second.getId(), third.getId());
+        assertThat(productRepository.findByNameRange("keyset", "keyseu", second.getId(), Limit.of(10)))
+                .extracting(ProductResponse::id)
+                .containsExactly(third.getId());
+    }
+
+    @Test
+    void testPrefixSearchUsesLookupColumnIndex() {
+        productRepository.save(product("PLAN00000000001", "Planned"));
+        RecordingStatementInspector.STATEMENTS.clear();
+
+        productRepository.findByCodeRange("plan", "plao", 0L, Limit.of(10));
+
+        String sql = RecordingStatementInspector.STATEMENTS.stream()
+                .filter(s -> s.startsWith("select") && s.contains("code_lc"))
+                .findFirst()
+                .orElseThrow();
+        Object[] args = Arrays.copyOf(new Object[]{"plan", "plao", "plan", 0L, 10}, (int) sql.chars().filter(c -> c == '?').count());
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class, args);
+
+        assertThat(plan).containsIgnoringCase("idx_product_code_lc");
+    }
+
+    private static Product product(String code, String name) {
+        Product product = new Product();
+        product.setCode(code);
+        product.setName(name);
+        product.setPriceEur(BigDecimal.TEN);
+        return product;
+    }
 }
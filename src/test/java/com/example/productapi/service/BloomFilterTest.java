@@ -0,0 +1,34 @@
+package com.example.productapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testNoFalseNegativesAndFalsePositiveRateNearTarget() {
+        int n = 100_000;
+        BloomFilter filter = new BloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put(code(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(code(i)), code(i));
+            if (filter.mightContain(code(n + i))) falsePositives++;
+        }
+        assertTrue(falsePositives < n * 0.015, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testRejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 1.0));
+    }
+
+    private static String code(int n) {
+        return "PROD" + String.format("%011d", n);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductRating;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, new long[]{2})) {
+            writer.product(1, "PROD00000000001", "Samsung Galaxy S23", "Flagship phone");
+            writer.product(2, "short", "Žlutý kůň", null);
+            writer.rating(new ProductRating(1L, "Samsung Galaxy S23", 19, 4));
+            writer.commit();
+        }
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            assertEquals(2, snapshot.maxId());
+            assertNull(snapshot.maxIdCode());
+            assertArrayEquals(new long[]{2}, snapshot.hotIds());
+            List<CatalogSnapshot.Entry> products = new ArrayList<>();
+            snapshot.products().forEach(products::add);
+            assertEquals(List.of(
+                    new CatalogSnapshot.Entry(1, "PROD00000000001", "Samsung Galaxy S23", "Flagship phone"),
+                    new CatalogSnapshot.Entry(2, "short", "Žlutý kůň", null)), products);
+            List<ProductRating> ratings = new ArrayList<>();
+            snapshot.ratings().forEach(ratings::add);
+            assertEquals(List.of(new ProductRating(1L, "Samsung Galaxy S23", 19, 4)), ratings);
+        }
+    }
+
+    @Test
+    void testUncommittedWriterLeavesPreviousSnapshot() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, new long[0])) {
+            writer.product(1, "PROD00000000001", "Phone", null);
+            writer.commit();
+        }
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, new long[0])) {
+            writer.product(2, "PROD00000000002", "Tablet", null);
+        }
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            assertEquals(1, snapshot.productCount());
+            assertEquals(ProductCode.of("PROD00000000001"), snapshot.maxIdCode());
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void testRejectsCorruptSnapshot() throws IOException {
+        Path file = dir.resolve("catalog.snapshot");
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, new long[0])) {
+            writer.product(1, "PROD00000000001", "Phone", "A phone");
+            writer.commit();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), Files.size(file) - 2);
+        }
+
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file));
+    }
+
+    @Test
+    void testRejectsProductsAfterRatings() throws IOException {
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(dir.resolve("catalog.snapshot"), new long[0])) {
+            writer.rating(new ProductRating(1L, "Phone", 5, 1));
+
+            assertThrows(IllegalStateException.class, () -> writer.product(2, "PROD00000000002", "Tablet", null));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.CacheConfig;
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CatalogWarmupTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private ProductRepository productRepository;
+    private ProductTextIndex textIndex;
+    private ProductCodeIndex codeIndex;
+    private PopularityRanking popularityRanking;
+    private CacheManager cacheManager;
+    private CatalogWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("catalog.snapshot");
+        productRepository = mock(ProductRepository.class);
+        textIndex = mock(ProductTextIndex.class);
+        codeIndex = new ProductCodeIndex(productRepository);
+        popularityRanking = new PopularityRanking(productRepository);
+        cacheManager = new CacheConfig().cacheManager(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        warmup = new CatalogWarmup(productRepository, new ProductSearchIndex(productRepository), textIndex,
+                new ProductCodeFilter(productRepository, 1_000, 0.01), codeIndex, popularityRanking,
+                new CatalogVersion(), cacheManager, transactionTemplate, file.toString());
+    }
+
+    @Test
+    void testWritesSnapshot() throws IOException {
+        cacheManager.getCache(ProductService.PRODUCT_CACHE).put(ProductCode.key(code(2)), product(2));
+        when(productRepository.streamAfter(0L)).thenReturn(Stream.of(product(1), product(2)));
+        when(productRepository.findRatingsAfter(eq(0L), any())).thenReturn(List.of(rating(1)));
+
+        warmup.writeSnapshot();
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            List<CatalogSnapshot.Entry> products = new ArrayList<>();
+            snapshot.products().forEach(products::add);
+            assertEquals(List.of(new CatalogSnapshot.Entry(1, code(1), "Phone 1", null),
+                    new CatalogSnapshot.Entry(2, code(2), "Phone 2", null)), products);
+            assertEquals(1, snapshot.ratingCount());
+            assertArrayEquals(new long[]{2}, snapshot.hotIds());
+        }
+    }
+
+    @Test
+    void testRestoresSnapshotAndCatchesUp() throws IOException {
+        writeSnapshot(3);
+        when(productRepository.findSearchEntriesAfter(eq(2L), any())).thenReturn(List.of(entry(3)));
+        when(productRepository.countByIdLessThanEqual(3L)).thenReturn(3L);
+        when(productRepository.findSearchEntriesAfter(eq(3L), any())).thenReturn(List.of(entry(4)));
+        when(productRepository.findResponsesByIds(List.of(2L))).thenReturn(List.of(product(2)));
+        when(productRepository.findRatingsAfter(eq(0L), any())).thenReturn(List.of(rating(1)));
+
+        warmup.warmUp();
+
+        assertEquals(1, codeIndex.idOf(code(1)));
+        assertEquals(4, codeIndex.idOf(code(4)));
+        assertEquals(1L, popularityRanking.top(1).get(0).id());
+        assertEquals(product(2), cacheManager.getCache(ProductService.PRODUCT_CACHE).get(ProductCode.key(code(2))).get());
+        verify(textIndex).add(3L, code(3), "Phone 3", null);
+        verify(textIndex).loadAfter(3);
+        verify(textIndex, never()).rebuild();
+        verify(productRepository, never()).findSearchEntriesAfter(eq(0L), any());
+    }
+
+    @Test
+    void testBuildsFromDatabaseWhenSnapshotDoesNotMatch() throws IOException {
+        writeSnapshot(3);
+        when(productRepository.findSearchEntriesAfter(eq(2L), any())).thenReturn(List.of(entry(3)));
+        when(productRepository.countByIdLessThanEqual(3L)).thenReturn(2L);
+        when(productRepository.findSearchEntriesAfter(eq(0L), any())).thenReturn(List.of(entry(1), entry(2)));
+
+        warmup.warmUp();
+
+        assertEquals(ProductCodeIndex.MISSING, codeIndex.idOf(code(3)));
+        assertNotNull(popularityRanking.top(1));
+        verify(textIndex).rebuild();
+        verify(textIndex, never()).add(any(), any(), any(), any());
+    }
+
+    private void writeSnapshot(int products) throws IOException {
+        try (CatalogSnapshot.Writer writer = CatalogSnapshot.create(file, new long[]{2})) {
+            for (int id = 1; id <= products; id++) {
+                writer.product(id, code(id), "Phone " + id, null);
+            }
+            writer.rating(rating(1));
+            writer.commit();
+        }
+    }
+
+    private static ProductResponse product(long id) {
+        return new ProductResponse(id, code(id), "Phone " + id, BigDecimal.TEN, BigDecimal.TEN, null);
+    }
+
+    private static ProductSearchEntry entry(long id) {
+        return new ProductSearchEntry(id, code(id), "Phone " + id);
+    }
+
+    private static ProductRating rating(long id) {
+        return new ProductRating(id, "Phone " + id, 9, 2);
+    }
+
+    private static String code(long id) {
+        return "PROD" + String.format("%011d", id);
+    }
+}
@@ -1,60 +1,200 @@
 package com.example.productapi.service;
 
-import com.example.productapi.dto.HnbRateResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HnbServiceTest {
 
-    private RestTemplate restTemplate;
+    private static final String RATES = """
+            [{"broj_tecajnice":"251","datum_primjene":"2022-12-31","drzava":"SAD","drzava_iso":"USA",
+              "kupovni_tecaj":"7,042843","prodajni_tecaj":"7,085227","sifra_valute":"840",
+              "srednji_tecaj":"7,064035","valuta":"USD"},
+             {"broj_tecajnice":"251","datum_primjene":"2022-12-31","drzava":"Velika Britanija","drzava_iso":"GBR",
+              "kupovni_tecaj":"0,880000","prodajni_tecaj":"0,890000","sifra_valute":"826",
+              "srednji_tecaj":"0,885000","valuta":"GBP"}]
+            """;
+
+    private HttpServer server;
     private HnbService hnbService;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String body = RATES;
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private volatile long delayMillis;
 
     @BeforeEach
-    void setUp() {
-        restTemplate = mock(RestTemplate.class);
-        hnbService = new HnbService("http://dummy-url") {
-
-            @Override
-            public BigDecimal getEurToUsdRate() {
-                return super.getEurToUsdRate();
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/rates", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
             }
-        };
+        });
+        server.start();
 
-        try {
-            var field = HnbService.class.getDeclaredField("restTemplate");
-            field.setAccessible(true);
-            field.set(hnbService, restTemplate);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        meterRegistry = new SimpleMeterRegistry();
+        hnbService = new HnbService("http://localhost:" + server.getAddress().getPort() + "/rates",
+                Duration.ofSeconds(1), Duration.ofMillis(500), 2, Duration.ofMinutes(5), meterRegistry, events::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
     }
 
     @Test
     void testRateParsing() {
-        HnbRateResponse[] response = new HnbRateResponse[]{
-                new HnbRateResponse("251", "2022-12-31", "SAD", "USA",
-                        "7,042843", "7,085227", "840", "7,064035", "USD")
-        };
+        hnbService.refresh().block();
 
-        when(restTemplate.getForObject("http://dummy-url?valuta=USD", HnbRateResponse[].class))
-                .thenReturn(response);
+        assertEquals(new BigDecimal("7.064035"), hnbService.getEurToUsdRate());
+        assertEquals(1, meterRegistry.get("hnb.fetch").tag("outcome", "success").timer().count());
+    }
 
-        BigDecimal rate = hnbService.getEurToUsdRate();
-        assertEquals(new BigDecimal("7.064035"), rate);
+    @Test
+    void testRateTableHoldsAllCurrencies() {
+        hnbService.refresh().block();
+
+        RateTable rates = hnbService.getRateTable();
+        assertEquals(LocalDate.of(2022, 12, 31), rates.date());
+        assertEquals(new BigDecimal("0.885000"), rates.rate("GBP"));
+        assertEquals(BigDecimal.ONE, rates.rate("EUR"));
+        assertEquals(new BigDecimal("88.50"), rates.convert(new BigDecimal("100"), "gbp"));
+    }
+
+    @Test
+    void testPublishesEventOnlyWhenRatesChange() {
+        hnbService.refresh().block();
+        hnbService.refresh().block();
+        assertEquals(1, events.size());
+
+        body = RATES.replace("0,885000", "0,886000");
+        hnbService.refresh().block();
+
+        assertEquals(2, events.size());
+        RateTableChangedEvent changed = (RateTableChangedEvent) events.get(1);
+        assertEquals(new BigDecimal("0.885000"), changed.previous().rate("GBP"));
+        assertEquals(new BigDecimal("0.886000"), changed.current().rate("GBP"));
     }
 
     @Test
     void testFallback() {
-        when(restTemplate.getForObject("http://dummy-url?valuta=USD", HnbRateResponse[].class))
-                .thenThrow(new RuntimeException("API failure"));
+        status = 500;
+
+        hnbService.refresh().block();
+
+        assertEquals(BigDecimal.valueOf(1.08), hnbService.getEurToUsdRate());
+        assertEquals(1, meterRegistry.get("hnb.fetch").tag("outcome", "failure").timer().count());
+        assertEquals(1.0, meterRegistry.get("hnb.rate.fallback").counter().count());
+    }
+
+    @Test
+    void testKeepsLastKnownRateOnFailure() {
+        hnbService.refresh().block();
+        status = 500;
+
+        hnbService.refresh().block();
+
+        assertEquals(new BigDecimal("7.064035"), hnbService.getEurToUsdRate());
+    }
 
+    @Test
+    void testSlowServerTimesOut() {
+        delayMillis = 2_000;
+
+        long started = System.nanoTime();
+        hnbService.refresh().block();
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertTrue(elapsed < 1_500, "refresh took " + elapsed + " ms");
+        assertEquals(BigDecimal.valueOf(1.08), hnbService.getEurToUsdRate());
+    }
+
+    @Test
+    void testGetRateDoesNotWaitForRefresh() {
+        delayMillis = 2_000;
+        hnbService.refresh().subscribe();
+
+        long started = System.nanoTime();
         BigDecimal rate = hnbService.getEurToUsdRate();
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
         assertEquals(BigDecimal.valueOf(1.08), rate);
+        assertTrue(elapsed < 100, "getEurToUsdRate took " + elapsed + " ms");
+    }
+
+    @Test
+    void testConcurrentRefreshesShareOneRequest() throws Exception {
+        delayMillis = 300;
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<RateTable>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return hnbService.refresh().block();
+                }));
+            }
+            start.countDown();
+
+            for (Future<RateTable> result : results) {
+                assertEquals(new BigDecimal("7.064035"), result.get(5, TimeUnit.SECONDS).rate("USD"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, requests.get());
+
+        hnbService.refresh().block();
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testCircuitOpensAfterRepeatedFailures() {
+        status = 500;
+
+        hnbService.refresh().block();
+        hnbService.refresh().block();
+        assertTrue(hnbService.isCircuitOpen());
+        assertEquals(1.0, meterRegistry.get("hnb.circuit.open").gauge().value());
+
+        status = 200;
+        hnbService.refresh().block();
+
+        assertEquals(2, requests.get());
+        assertEquals(BigDecimal.valueOf(1.08), hnbService.getEurToUsdRate());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PopularityRankingTest {
+
+    private PopularityRanking ranking;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findRatingsAfter(eq(0L), any())).thenReturn(List.of(
+                new ProductRating(1L, "Samsung Galaxy S23", 19, 4),
+                new ProductRating(2L, "iPhone SE", 19, 4),
+                new ProductRating(3L, "Xiaomi 13", 9, 2),
+                new ProductRating(4L, "OnePlus 11", 5, 2)));
+        ranking = new PopularityRanking(productRepository);
+    }
+
+    @Test
+    void testNotReadyBeforeRebuild() {
+        assertNull(ranking.top(3));
+    }
+
+    @Test
+    void testTopOrdersByAverage() {
+        ranking.rebuild();
+
+        List<ProductRating> top = ranking.top(3);
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(ProductRating::id).toList());
+    }
+
+    @Test
+    void testUpdateMovesProduct() {
+        ranking.rebuild();
+        ranking.update(new ProductRating(4L, "OnePlus 11", 15, 3));
+
+        assertEquals(4L, ranking.top(1).get(0).id());
+        assertEquals(4, ranking.top(10).size());
+    }
+
+    @Test
+    void testStaleUpdateIgnored() {
+        ranking.rebuild();
+        ranking.update(new ProductRating(4L, "OnePlus 11", 15, 3));
+        ranking.update(new ProductRating(4L, "OnePlus 11", 7, 2));
+
+        assertEquals(4L, ranking.top(1).get(0).id());
+    }
+}
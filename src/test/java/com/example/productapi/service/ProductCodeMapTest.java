@@ -0,0 +1,57 @@
+package com.example.productapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCodeMapTest {
+
+    @Test
+    void testPacksAndUnpacksCodes() {
+        ProductCode code = ProductCode.of("PROD00000000001");
+
+        assertNotNull(code);
+        assertEquals("PROD00000000001", code.toString());
+        assertEquals(code, ProductCode.of(new String("PROD00000000001".toCharArray())));
+        assertNotEquals(code, ProductCode.of("PROD00000000002"));
+    }
+
+    @Test
+    void testRejectsCodesThatDoNotPack() {
+        assertNull(ProductCode.of(null));
+        assertNull(ProductCode.of("PROD0001"));
+        assertNull(ProductCode.of("PROD000000000001"));
+        assertNull(ProductCode.of("PROD0000000000č"));
+    }
+
+    @Test
+    void testMatchesHashMapAcrossResizes() {
+        ProductCodeMap map = new ProductCodeMap(16);
+        Map<String, Long> reference = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            map.put(ProductCode.of(code(i)), i);
+            reference.put(code(i), (long) i);
+        }
+        map.put(ProductCode.of(code(42)), 4242);
+        reference.put(code(42), 4242L);
+
+        assertEquals(reference.size(), map.size());
+        for (int i = 0; i < 60_000; i++) {
+            assertEquals(reference.getOrDefault(code(i), ProductCodeMap.ABSENT), map.get(ProductCode.of(code(i))));
+        }
+    }
+
+    @Test
+    void testRejectsNegativeIds() {
+        ProductCodeMap map = new ProductCodeMap(16);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(ProductCode.of(code(1)), -1));
+    }
+
+    private static String code(int n) {
+        return "PROD" + String.format("%011d", n);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.BulkImportResult;
+import com.example.productapi.dto.ProductRequest;
+import com.example.productapi.entity.Product;
+import com.example.productapi.repository.ProductRepository;
+import jakarta.validation.Validation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductImportServiceTest {
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex searchIndex;
+    private ProductTextIndex textIndex;
+    private ProductImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        searchIndex = mock(ProductSearchIndex.class);
+        textIndex = mock(ProductTextIndex.class);
+        HnbService hnbService = mock(HnbService.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+        when(hnbService.getEurToUsdRate()).thenReturn(new BigDecimal("1.10"));
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productRepository.saveAllAndFlush(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        importService = new ProductImportService(productRepository, hnbService, searchIndex, textIndex,
+                new ProductCodeFilter(productRepository, 1_000, 0.01), new ProductCodeIndex(productRepository),
+                new CatalogVersion(),
+                mock(SearchResultCache.class), Validation.buildDefaultValidatorFactory().getValidator(), transactionTemplate);
+    }
+
+    @Test
+    void testImportReportsInvalidAndDuplicateRows() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(Set.of("PROD00000000003"));
+
+        BulkImportResult result = importService.importProducts(List.of(
+                request("PROD00000000001", "Phone", "100"),
+                request("PROD00000000001", "Phone again", "100"),
+                request("SHORT", "Bad code", "100"),
+                request("PROD00000000003", "Existing", "100"),
+                request("PROD00000000004", "Laptop", "200")).iterator());
+
+        assertEquals(5, result.received());
+        assertEquals(2, result.created());
+        assertEquals(List.of(1, 2, 3), result.errors().stream().map(e -> e.index()).sorted().toList());
+        verify(productRepository, times(1)).findExistingCodes(anyCollection());
+        verify(searchIndex, times(2)).add(any(), any(), any());
+        verify(textIndex, times(2)).add(any(), any(), any(), any());
+    }
+
+    @Test
+    void testImportUsesOneRateSnapshotAndConverts() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(Set.of());
+
+        importService.importProducts(List.of(request("PROD00000000001", "Phone", "100")).iterator());
+
+        verify(productRepository).saveAllAndFlush(argThat((List<Product> products) ->
+                products.size() == 1 && products.get(0).getPriceUsd().compareTo(new BigDecimal("110.00")) == 0));
+    }
+
+    @Test
+    void testImportFallsBackToRowByRowOnConflict() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(Set.of());
+        when(productRepository.saveAllAndFlush(anyList())).thenThrow(duplicateCode());
+        when(productRepository.saveAndFlush(any(Product.class))).thenAnswer(inv -> {
+            Product p = inv.getArgument(0);
+            if (p.getCode().equals("PROD00000000002")) throw duplicateCode();
+            return p;
+        });
+
+        BulkImportResult result = importService.importProducts(List.of(
+                request("PROD00000000001", "Phone", "100"),
+                request("PROD00000000002", "Laptop", "200")).iterator());
+
+        assertEquals(1, result.created());
+        assertEquals(1, result.errors().size());
+        assertEquals("PROD00000000002", result.errors().get(0).code());
+        assertEquals("Product with same code exists", result.errors().get(0).error());
+    }
+
+    @Test
+    void testImportReportsCauseOfOtherInsertFailures() {
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(Set.of());
+        DataIntegrityViolationException tooLong = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Value too long for column NAME", "22001"));
+        when(productRepository.saveAllAndFlush(anyList())).thenThrow(tooLong);
+        when(productRepository.saveAndFlush(any(Product.class))).thenThrow(tooLong);
+
+        BulkImportResult result = importService.importProducts(List.of(
+                request("PROD00000000001", "Phone", "100")).iterator());
+
+        assertEquals(0, result.created());
+        assertEquals("Insert failed: Value too long for column NAME", result.errors().get(0).error());
+    }
+
+    @Test
+    void testMalformedInputStopsImport() {
+        Iterator<ProductRequest> rows = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public ProductRequest next() {
+                if (read++ == 0) return request("PROD00000000001", "Phone", "100");
+                throw new IllegalStateException("Unexpected token");
+            }
+        };
+        when(productRepository.findExistingCodes(anyCollection())).thenReturn(Set.of());
+
+        BulkImportResult result = importService.importProducts(rows);
+
+        assertEquals(1, result.received());
+        assertEquals(1, result.created());
+        assertEquals(1, result.errors().size());
+        assertEquals(1, result.errors().get(0).index());
+    }
+
+    private static DataIntegrityViolationException duplicateCode() {
+        SQLException sql = new SQLException("Unique index or primary key violation: UK_PRODUCT_CODE_INDEX_1", "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "UK_PRODUCT_CODE_INDEX_1"));
+    }
+
+    private static ProductRequest request(String code, String name, String price) {
+        return new ProductRequest(code, name, new BigDecimal(price), null);
+    }
+}
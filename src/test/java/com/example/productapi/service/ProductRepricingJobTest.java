@@ -0,0 +1,70 @@
+package com.example.productapi.service;
+
+import com.example.productapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProductRepricingJobTest {
+
+    private ProductRepository productRepository;
+    private ProductService productService;
+    private CatalogVersion catalogVersion;
+    private ProductRepricingJob job;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        productService = mock(ProductService.class);
+        catalogVersion = new CatalogVersion();
+        job = new ProductRepricingJob(productRepository, productService, catalogVersion, Runnable::run);
+    }
+
+    @Test
+    void testRepricesInIdRanges() {
+        when(productRepository.findMaxId()).thenReturn(25_000L);
+        when(productService.repriceUsd(any(), anyLong(), anyLong())).thenReturn(7);
+
+        int updated = job.reprice(new BigDecimal("1.10"));
+
+        assertEquals(21, updated);
+        verify(productService).repriceUsd(new BigDecimal("1.10"), 1, 10_000);
+        verify(productService).repriceUsd(new BigDecimal("1.10"), 10_001, 20_000);
+        verify(productService).repriceUsd(new BigDecimal("1.10"), 20_001, 30_000);
+    }
+
+    @Test
+    void testUsdRateChangeTriggersRepricing() {
+        when(productRepository.findMaxId()).thenReturn(10L);
+        long version = catalogVersion.current();
+
+        job.onRatesChanged(new RateTableChangedEvent(
+                table("1.08", "0.85"), table("1.10", "0.85")));
+
+        verify(productService).repriceUsd(eq(new BigDecimal("1.10")), eq(1L), anyLong());
+        assertTrue(catalogVersion.current() > version);
+    }
+
+    @Test
+    void testOtherRateChangeOnlyBumpsVersion() {
+        long version = catalogVersion.current();
+
+        job.onRatesChanged(new RateTableChangedEvent(
+                table("1.10", "0.85"), table("1.10", "0.86")));
+
+        verifyNoInteractions(productService);
+        assertTrue(catalogVersion.current() > version);
+    }
+
+    private static RateTable table(String usd, String gbp) {
+        return new RateTable(null, Map.of("USD", new BigDecimal(usd), "GBP", new BigDecimal(gbp)));
+    }
+}
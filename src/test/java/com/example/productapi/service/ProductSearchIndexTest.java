@@ -0,0 +1,67 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductSearchEntry;
+import com.example.productapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        index = new ProductSearchIndex(productRepository);
+
+        when(productRepository.findSearchEntriesAfter(eq(0L), any())).thenReturn(List.of(
+                new ProductSearchEntry(1L, "PROD00000000001", "Samsung Galaxy S23"),
+                new ProductSearchEntry(2L, "PROD00000000002", "iPhone SE"),
+                new ProductSearchEntry(3L, "PROD00000000003", "Xiaomi 13")));
+    }
+
+    @Test
+    void testNotReadyBeforeRebuild() {
+        assertNull(index.candidates(null, "phone"));
+    }
+
+    @Test
+    void testCandidatesByName() {
+        index.rebuild();
+
+        assertArrayEquals(new long[]{2L}, index.candidates(null, "PHONE"));
+        assertArrayEquals(new long[0], index.candidates(null, "nokia"));
+    }
+
+    @Test
+    void testCandidatesByCodeAndName() {
+        index.rebuild();
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.candidates("prod0000", null));
+        assertArrayEquals(new long[]{3L}, index.candidates("prod0000", "xiaomi"));
+    }
+
+    @Test
+    void testShortQueryFallsBack() {
+        index.rebuild();
+
+        assertNull(index.candidates("pr", "se"));
+    }
+
+    @Test
+    void testAddAfterRebuild() {
+        index.rebuild();
+        index.add(4L, "PROD00000000004", "OnePlus 11");
+        index.add(4L, "PROD00000000004", "OnePlus 11");
+
+        assertArrayEquals(new long[]{4L}, index.candidates(null, "plus"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.CacheConfig;
+import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductRating;
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.repository.ProductRepository;
+import com.example.productapi.repository.ReviewRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs identical calls concurrently through the caching proxy of {@link ProductService}
+ * and checks that they share one computation.
+ */
+@SpringJUnitConfig
+class ProductServiceCoalescingTest {
+
+    private static final int CALLERS = 16;
+
+    @Configuration
+    @EnableCaching
+    @Import({CacheConfig.class, SearchResultCache.class, ProductService.class})
+    static class Config {
+
+        @Bean
+        static ConversionService conversionService() {
+            return new DefaultFormattingConversionService();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockitoBean
+    private ProductRepository productRepository;
+
+    @MockitoBean
+    private ReviewRepository reviewRepository;
+
+    @MockitoBean
+    private HnbService hnbService;
+
+    @MockitoBean
+    private ProductSearchIndex searchIndex;
+
+    @MockitoBean
+    private ProductTextIndex textIndex;
+
+    @MockitoBean
+    private ProductCodeFilter codeFilter;
+
+    @MockitoBean
+    private ProductCodeIndex codeIndex;
+
+    @MockitoBean
+    private PopularityRanking popularityRanking;
+
+    @MockitoBean
+    private CatalogVersion catalogVersion;
+
+    @MockitoBean
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void testConcurrentSearchesRunOneQuery() throws Exception {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", BigDecimal.TEN, BigDecimal.TEN, null);
+        when(productRepository.findByNameContainsIgnoreCase(eq("phone"), eq(0L), any()))
+                .thenAnswer(inv -> slowly(List.of(phone)));
+
+        List<ProductPage> pages = concurrently(() ->
+                productService.findProducts(null, " Phone", SearchMatch.CONTAINS, null, 100));
+
+        verify(productRepository, times(1)).findByNameContainsIgnoreCase(eq("phone"), eq(0L), any());
+        pages.forEach(page -> assertSame(pages.get(0), page));
+        assertEquals(List.of(phone), pages.get(0).items());
+    }
+
+    @Test
+    void testSearchAfterProductChangeRunsAgain() {
+        when(productRepository.findByNameContainsIgnoreCase(eq("phone"), eq(0L), any())).thenReturn(List.of());
+        when(catalogVersion.products()).thenReturn(1L);
+        when(catalogVersion.current()).thenReturn(1L);
+        productService.findProducts(null, "phone", SearchMatch.CONTAINS, null, 100);
+
+        // A review changes the catalog but not the product set
+        when(catalogVersion.current()).thenReturn(2L);
+        productService.findProducts(null, "phone", SearchMatch.CONTAINS, null, 100);
+
+        when(catalogVersion.products()).thenReturn(2L);
+        productService.findProducts(null, "phone", SearchMatch.CONTAINS, null, 100);
+
+        verify(productRepository, times(2)).findByNameContainsIgnoreCase(eq("phone"), eq(0L), any());
+    }
+
+    @Test
+    void testConcurrentPopularCallsRankOnce() throws Exception {
+        when(popularityRanking.top(3)).thenAnswer(inv -> slowly(List.of(new ProductRating(1L, "Phone", 9, 2))));
+
+        List<List<PopularProductDto>> results = concurrently(() -> productService.findPopular(3, 1));
+
+        verify(popularityRanking, times(1)).top(3);
+        results.forEach(result -> assertSame(results.get(0), result));
+        assertEquals("Phone", results.get(0).get(0).getName());
+        assertEquals(4.5, results.get(0).get(0).getAverageRating());
+    }
+
+    /**
+     * Holds the computation open long enough for every caller to arrive.
+     */
+    private static <T> T slowly(T value) throws InterruptedException {
+        Thread.sleep(300);
+        return value;
+    }
+
+    private static <T> List<T> concurrently(Callable<T> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
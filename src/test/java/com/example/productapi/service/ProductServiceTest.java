@@ -1,16 +1,26 @@
 package com.example.productapi.service;
 
+import com.example.productapi.dto.PopularProductDto;
+import com.example.productapi.dto.ProductPage;
+import com.example.productapi.dto.ProductRating;
 import com.example.productapi.dto.ProductRequest;
 import com.example.productapi.dto.ProductResponse;
 import com.example.productapi.entity.Product;
 import com.example.productapi.entity.Review;
+import com.example.productapi.exception.ProductNotFoundException;
 import com.example.productapi.repository.ProductRepository;
 import com.example.productapi.repository.ReviewRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
+
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,12 +36,37 @@ public class ProductServiceTest {
     @Mock
     private HnbService hnbService;
 
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductTextIndex textIndex;
+
+    @Mock
+    private ProductCodeFilter codeFilter;
+
+    @Mock
+    private ProductCodeIndex codeIndex;
+
+    @Mock
+    private PopularityRanking popularityRanking;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private ProductService productService;
 
     @BeforeEach
     void init() {
         MockitoAnnotations.openMocks(this);
+        when(codeIndex.idOf(any())).thenReturn(ProductCodeIndex.UNKNOWN);
     }
 
     @Test
@@ -52,40 +87,395 @@ public class ProductServiceTest {
         saved.setPriceUsd(BigDecimal.valueOf(110));
         saved.setDescription(null);
 
-        when(productRepository.save(any(Product.class)))
+        when(productRepository.saveAndFlush(any(Product.class)))
                 .thenReturn(saved);
 
         ProductResponse response = productService.createProduct(req);
 
         assertEquals("Phone", response.name());
         assertEquals("PROD00000000001", response.code());
-        assertEquals(BigDecimal.valueOf(110), response.priceUsd());
+        assertEquals(BigDecimal.valueOf(110), response.priceUsd().toBigDecimal());
+        verify(catalogVersion).bumpProducts();
+    }
+
+    @Test
+    void testCreateProductSkipsDuplicateQueryForUnknownCode() {
+        ProductRequest req = new ProductRequest("PROD00000000009", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000009")).thenReturn(false);
+        when(hnbService.getEurToUsdRate()).thenReturn(BigDecimal.ONE);
+        when(productRepository.saveAndFlush(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        productService.createProduct(req);
+
+        verify(productRepository, never()).findByCode(any());
+        verify(codeFilter).add("PROD00000000009");
+        verify(codeIndex).add(any(), eq("PROD00000000009"));
+    }
+
+    @Test
+    void testCreateProductRejectsCodeFromIndexWithoutQuery() {
+        ProductRequest req = new ProductRequest("PROD00000000001", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000001")).thenReturn(true);
+        when(codeIndex.idOf("PROD00000000001")).thenReturn(1L);
+
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(req));
+        verify(productRepository, never()).findByCode(any());
+    }
+
+    @Test
+    void testCreateProductRejectsCodeMissingFromIndexButInDatabase() {
+        ProductRequest req = new ProductRequest("PROD00000000009", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000009")).thenReturn(true);
+        when(codeIndex.idOf("PROD00000000009")).thenReturn(ProductCodeIndex.MISSING);
+        when(productRepository.findByCode("PROD00000000009")).thenReturn(Optional.of(new Product()));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(req));
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCreateProductRejectsKnownCode() {
+        ProductRequest req = new ProductRequest("PROD00000000001", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000001")).thenReturn(true);
+        when(productRepository.findByCode("PROD00000000001")).thenReturn(Optional.of(new Product()));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(req));
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCreateProductReportsUniqueConstraintAsDuplicate() {
+        ProductRequest req = new ProductRequest("PROD00000000001", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000001")).thenReturn(false);
+        when(hnbService.getEurToUsdRate()).thenReturn(BigDecimal.ONE);
+        SQLException sql = new SQLException("Unique index or primary key violation: UK_PRODUCT_CODE_INDEX_1", "23505");
+        when(productRepository.saveAndFlush(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement",
+                        new ConstraintViolationException("could not execute statement", sql, "UK_PRODUCT_CODE_INDEX_1")));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> productService.createProduct(req));
+        assertEquals("Product with same code exists", ex.getMessage());
+        verify(codeFilter, never()).add(any());
+    }
+
+    @Test
+    void testCreateProductRethrowsOtherIntegrityViolations() {
+        ProductRequest req = new ProductRequest("PROD00000000001", "Phone", BigDecimal.TEN, null);
+        when(codeFilter.mightContain("PROD00000000001")).thenReturn(false);
+        when(hnbService.getEurToUsdRate()).thenReturn(BigDecimal.ONE);
+        when(productRepository.saveAndFlush(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("Value too long for column \"NAME\""));
+
+        assertThrows(DataIntegrityViolationException.class, () -> productService.createProduct(req));
+    }
+
+    @Test
+    void testFindByCode() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", BigDecimal.TEN, BigDecimal.TEN, null);
+        when(productRepository.findResponseByCode("PROD00000000001")).thenReturn(Optional.of(phone));
+
+        assertEquals(phone, productService.findByCode("PROD00000000001"));
+        verifyNoInteractions(codeFilter);
+    }
+
+    @Test
+    void testFindByUnknownCode() {
+        assertThrows(ProductNotFoundException.class, () -> productService.findByCode("NOPE00000000001"));
+    }
+
+    @Test
+    void testFindByCodeLoadsIndexedProductById() {
+        Product phone = Product.builder().id(7L).code("PROD00000000007").name("Phone").build();
+        when(codeIndex.idOf("PROD00000000007")).thenReturn(7L);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(phone));
+
+        assertEquals("Phone", productService.findByCode("PROD00000000007").name());
+        verify(productRepository, never()).findResponseByCode(any());
+    }
+
+    @Test
+    void testFindByCodeQueriesCodeMissingFromIndex() {
+        ProductResponse phone = new ProductResponse(8L, "PROD00000000008", "Phone", BigDecimal.TEN, BigDecimal.TEN, null);
+        when(codeIndex.idOf("PROD00000000008")).thenReturn(ProductCodeIndex.MISSING);
+        when(productRepository.findResponseByCode("PROD00000000008")).thenReturn(Optional.of(phone));
+
+        assertEquals(phone, productService.findByCode("PROD00000000008"));
+    }
+
+    @Test
+    void testProductIdOfIndexedCodeTakesNoQuery() {
+        when(codeIndex.idOf("PROD00000000007")).thenReturn(7L);
+
+        assertEquals(7L, productService.productIdOf("PROD00000000007"));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testProductIdOfQueriesCodeUnknownToIndex() {
+        ProductResponse phone = new ProductResponse(8L, "PROD00000000008", "Phone", BigDecimal.TEN, BigDecimal.TEN, null);
+        when(productRepository.findResponseByCode("PROD00000000008")).thenReturn(Optional.of(phone));
+
+        assertEquals(8L, productService.productIdOf("PROD00000000008"));
+        verify(productRepository, never()).findByCode(any());
+        assertThrows(ProductNotFoundException.class, () -> productService.productIdOf("NOPE00000000001"));
+    }
+
+    @Test
+    void testStreamProductsNormalizesFilters() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", BigDecimal.TEN, BigDecimal.TEN, null);
+        when(productRepository.streamMatching("phone", null)).thenReturn(Stream.of(phone));
+
+        List<ProductResponse> streamed = new ArrayList<>();
+        productService.streamProducts("  Phone ", "   ", streamed::add);
+
+        assertEquals(List.of(phone), streamed);
     }
 
     @Test
     void testFindProducts() {
-        Product p = new Product();
-        p.setCode("ABC");
-        p.setName("Test");
+        ProductResponse p = new ProductResponse(1L, "ABC", "Test", (BigDecimal) null, null, null);
 
-        when(productRepository.findAll()).thenReturn(List.of(p));
+        when(productRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenReturn(List.of(p));
 
-        List<ProductResponse> list = productService.findProducts(null, null);
+        List<ProductResponse> list = productService.findProducts(null, null, null, 10).items();
         assertEquals(1, list.size());
         assertEquals("Test", list.get(0).name());
     }
 
+    @Test
+    void testFindProductsReturnsNextCursor() {
+        List<ProductResponse> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            rows.add(new ProductResponse(id, "PROD0000000000" + id, "P" + id, (BigDecimal) null, null, null));
+        }
+        when(productRepository.findByIdGreaterThanOrderById(eq(0L), any())).thenReturn(rows);
+        when(productRepository.findByIdGreaterThanOrderById(eq(2L), any())).thenReturn(rows.subList(2, 3));
+
+        ProductPage first = productService.findProducts(null, null, null, 2);
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+
+        ProductPage second = productService.findProducts(null, null, first.nextCursor(), 2);
+        assertEquals(1, second.items().size());
+        assertEquals(3L, second.items().get(0).id());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void testPricesInRequestedCurrency() {
+        when(hnbService.getRateTable()).thenReturn(new RateTable(null, Map.of("JPY", new BigDecimal("163.12"))));
+        ProductResponse product = new ProductResponse(1L, "ABC", "Test",
+                new BigDecimal("10.00"), new BigDecimal("10.80"), null);
+
+        ProductResponse priced = productService.pricesIn("jpy").apply(product);
+
+        assertEquals("JPY", priced.currency());
+        assertEquals(new BigDecimal("1631"), priced.price().toBigDecimal());
+    }
+
+    @Test
+    void testPricesInRejectsUnknownCurrency() {
+        when(hnbService.getRateTable()).thenReturn(new RateTable(null, Map.of("USD", new BigDecimal("1.08"))));
+
+        assertThrows(IllegalArgumentException.class, () -> productService.pricesIn("XYZ"));
+    }
+
+    @Test
+    void testFindProductsNormalizesFilters() {
+        when(productRepository.findByNameContainsIgnoreCase(eq("galaxy s"), eq(0L), any())).thenReturn(List.of());
+
+        productService.findProducts(" ", "  Galaxy S ", null, 10);
+
+        verify(productRepository).findByNameContainsIgnoreCase(eq("galaxy s"), eq(0L), any());
+    }
+
+    @Test
+    void testFindProductsRejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findProducts(null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> productService.findProducts(null, null, "not-a-cursor", 10));
+    }
+
+    @Test
+    void testFindProductsUsesSearchIndex() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", (BigDecimal) null, null, null);
+        ProductResponse laptop = new ProductResponse(2L, "PROD00000000002", "Laptop", (BigDecimal) null, null, null);
+
+        when(searchIndex.candidates(null, "pho")).thenReturn(new long[]{1L, 2L});
+        when(productRepository.findResponsesByIds(List.of(1L, 2L))).thenReturn(List.of(phone, laptop));
+
+        List<ProductResponse> list = productService.findProducts(null, "pho", null, 10).items();
+        assertEquals(1, list.size());
+        assertEquals("Phone", list.get(0).name());
+        verify(productRepository, never()).findByNameContainsIgnoreCase(any(), any(), any());
+    }
+
+    @Test
+    void testFindProductsByPrefixUsesIndexRange() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", (BigDecimal) null, null, null);
+        ProductResponse laptop = new ProductResponse(2L, "PROD00000000002", "Laptop", (BigDecimal) null, null, null);
+
+        when(productRepository.findByCodeRange(eq("prod0"), eq("prod1"), eq(0L), any())).thenReturn(List.of(phone, laptop));
+
+        List<ProductResponse> list = productService.findProducts("PROD0", "lap", SearchMatch.PREFIX, null, 10).items();
+        assertEquals(1, list.size());
+        assertEquals("Laptop", list.get(0).name());
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    void testFindProductsByPrefixResumesFromKeyCursor() {
+        ProductResponse laptop = new ProductResponse(2L, "PROD00000000002", "Laptop", (BigDecimal) null, null, null);
+        ProductResponse tablet = new ProductResponse(3L, "PROD00000000003", "Tablet", (BigDecimal) null, null, null);
+        String after = ProductPage.encodeKeyCursor("prod00000000001", 1L);
+
+        when(productRepository.findByCodeRange(eq("prod00000000001"), eq("prod1"), eq(1L), any()))
+                .thenReturn(List.of(laptop, tablet));
+
+        ProductPage page = productService.findProducts("PROD0", null, SearchMatch.PREFIX, after, 1);
+        assertEquals(List.of(laptop), page.items());
+        assertEquals(ProductPage.encodeKeyCursor("prod00000000002", 2L), page.nextCursor());
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.findProducts("PROD0", null, SearchMatch.PREFIX, ProductPage.encodeCursor(1L), 1));
+    }
+
+    @Test
+    void testSearchProductsFallbackHonoursCursor() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", (BigDecimal) null, null, null);
+        ProductResponse case_ = new ProductResponse(2L, "PROD00000000002", "Phone case", (BigDecimal) null, null, null);
+        ProductResponse charger = new ProductResponse(3L, "PROD00000000003", "Phone charger", (BigDecimal) null, null, null);
+        when(textIndex.search(eq("phone"), anyInt(), anyInt())).thenReturn(null);
+        when(productRepository.findByNameContainsIgnoreCase(eq("phone"), eq(0L), any()))
+                .thenReturn(List.of(phone, case_, charger));
+
+        ProductPage page = productService.searchProducts("phone", ProductPage.encodeOffsetCursor(1), 1);
+        assertEquals(List.of(case_), page.items());
+        assertEquals(ProductPage.encodeOffsetCursor(2), page.nextCursor());
+
+        ProductPage past = productService.searchProducts("phone", ProductPage.encodeOffsetCursor(5), 1);
+        assertEquals(List.of(), past.items());
+        assertNull(past.nextCursor());
+    }
+
+    @Test
+    void testSearchProductsKeepsRelevanceOrder() {
+        ProductResponse phone = new ProductResponse(1L, "PROD00000000001", "Phone", (BigDecimal) null, null, null);
+        ProductResponse case_ = new ProductResponse(2L, "PROD00000000002", "Phone case", (BigDecimal) null, null, null);
+
+        when(textIndex.search("phone", 0, 2)).thenReturn(new long[]{2L, 1L});
+        when(productRepository.findResponsesByIds(List.of(2L))).thenReturn(List.of(case_));
+
+        ProductPage page = productService.searchProducts("phone", null, 1);
+        assertEquals(List.of(case_), page.items());
+        assertEquals(ProductPage.encodeOffsetCursor(1), page.nextCursor());
+
+        when(textIndex.search("phone", 1, 2)).thenReturn(new long[]{1L});
+        when(productRepository.findResponsesByIds(List.of(1L))).thenReturn(List.of(phone));
+
+        ProductPage next = productService.searchProducts("phone", page.nextCursor(), 1);
+        assertEquals(List.of(phone), next.items());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void testSearchProductsRejectsBlankQuery() {
+        assertThrows(IllegalArgumentException.class, () -> productService.searchProducts(" ", null, 10));
+    }
+
+    @Test
+    void testPrefixEnd() {
+        assertEquals("prod1", ProductService.prefixEnd("prod0"));
+        assertEquals("ab", ProductService.prefixEnd("aa"));
+    }
+
     @Test
     void testAddReview() {
-        Product p = new Product();
-        p.setName("Phone");
+        Product p = Product.builder().id(1L).name("Phone").build();
 
         Review saved = new Review(p, "John", "Great", 5);
 
         when(reviewRepository.save(any())).thenReturn(saved);
+        when(productRepository.findAllForRatingUpdate(any())).thenReturn(List.of(p));
 
         productService.addReview(p, "John", "Great", 5);
 
         verify(reviewRepository, times(1)).save(any());
+        assertEquals(5, p.getRatingSum());
+        assertEquals(1, p.getRatingCount());
+        assertEquals(5.0, p.getRatingAverage());
+    }
+
+    @Test
+    void testAddReviewsAggregatesPerProduct() {
+        Product phone = Product.builder().id(1L).name("Phone").build();
+        Product laptop = Product.builder().id(2L).name("Laptop").build();
+        when(productRepository.findAllForRatingUpdate(Set.of(1L, 2L))).thenReturn(List.of(phone, laptop));
+
+        productService.addReviews(List.of(
+                new PendingReview(1L, "Alice", "Great", 5),
+                new PendingReview(2L, "Bob", "Fine", 3),
+                new PendingReview(1L, "Carol", "Good", 4)));
+
+        verify(reviewRepository).saveAll(argThat(reviews -> ((Collection<?>) reviews).size() == 3));
+        verify(productRepository, times(1)).findAllForRatingUpdate(any());
+        verify(popularityRanking).update(new ProductRating(1L, "Phone", 9, 2));
+        verify(popularityRanking).update(new ProductRating(2L, "Laptop", 3, 1));
+        verify(catalogVersion).bumpRatings();
+        verify(catalogVersion, never()).bumpProducts();
+    }
+
+    @Test
+    void testAddReviewUpdatesRanking() {
+        Product p = Product.builder().id(7L).name("Phone").ratingSum(4).ratingCount(1).build();
+
+        when(productRepository.findAllForRatingUpdate(any())).thenReturn(List.of(p));
+
+        productService.addReview(p, "John", "Great", 5);
+
+        verify(popularityRanking).update(new ProductRating(7L, "Phone", 9, 2));
+    }
+
+    @Test
+    void testFindPopularFromRanking() {
+        when(popularityRanking.top(3)).thenReturn(List.of(
+                new ProductRating(1L, "Phone", 14, 3),
+                new ProductRating(2L, "Laptop", 4, 1)));
+
+        List<PopularProductDto> top = productService.findPopular(3, 1);
+
+        assertEquals(2, top.size());
+        assertEquals("Phone", top.get(0).getName());
+        assertEquals(4.7, top.get(0).getAverageRating());
+        verify(productRepository, never()).findTopRated(anyLong(), any());
+    }
+
+    @Test
+    void testFindPopularWithThresholdQueriesDatabase() {
+        when(productRepository.findTopRated(eq(5L), any())).thenReturn(List.of(
+                new ProductRating(1L, "Phone", 28, 6)));
+
+        List<PopularProductDto> top = productService.findPopular(10, 5);
+
+        assertEquals(1, top.size());
+        assertEquals(4.7, top.get(0).getAverageRating());
+        verify(popularityRanking, never()).top(anyInt());
+    }
+
+    @Test
+    void testFindPopularFallsBackBeforeRankingIsBuilt() {
+        when(popularityRanking.top(3)).thenReturn(null);
+        when(productRepository.findTopRated(eq(1L), any())).thenReturn(List.of(
+                new ProductRating(1L, "Phone", 14, 3)));
+
+        List<PopularProductDto> top = productService.findPopular(3, 0);
+
+        assertEquals(1, top.size());
+    }
+
+    @Test
+    void testFindPopularRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findPopular(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> productService.findPopular(3, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> productService.findPopular(3, ProductService.MAX_MIN_REVIEWS + 1));
     }
 }
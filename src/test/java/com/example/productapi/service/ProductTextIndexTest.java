@@ -0,0 +1,113 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ProductResponse;
+import com.example.productapi.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductTextIndexTest {
+
+    private ProductRepository productRepository;
+    private ProductTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        index = new ProductTextIndex(productRepository, transactionTemplate, "");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.destroy();
+    }
+
+    @Test
+    void searchReturnsNullUntilBuilt() {
+        assertNull(index.search("phone", 0, 10));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        rebuildWith(
+                product(1L, "PROD00000000001", "Phone case", "Fits every laptop bag"),
+                product(2L, "PROD00000000002", "Laptop", "Light and fast"));
+
+        assertArrayEquals(new long[]{2L, 1L}, index.search("laptop", 0, 10));
+    }
+
+    @Test
+    void everyTokenMustMatch() {
+        rebuildWith(
+                product(1L, "PROD00000000001", "Samsung phone", null),
+                product(2L, "PROD00000000002", "Samsung monitor", null));
+
+        assertArrayEquals(new long[]{1L}, index.search("samsung phone", 0, 10));
+    }
+
+    @Test
+    void toleratesTypos() {
+        rebuildWith(product(1L, "PROD00000000001", "Laptop", null));
+
+        assertArrayEquals(new long[]{1L}, index.search("lapotp", 0, 10));
+    }
+
+    @Test
+    void matchesCodePrefix() {
+        rebuildWith(
+                product(1L, "PROD00000000001", "Phone", null),
+                product(2L, "TEST00000000002", "Phone", null));
+
+        assertArrayEquals(new long[]{1L}, index.search("prod0000", 0, 10));
+    }
+
+    @Test
+    void pagesThroughEqualScoresInIdOrder() {
+        rebuildWith(
+                product(3L, "PROD00000000003", "Watch", null),
+                product(1L, "PROD00000000001", "Watch", null),
+                product(2L, "PROD00000000002", "Watch", null));
+
+        assertArrayEquals(new long[]{1L, 2L}, index.search("watch", 0, 2));
+        assertArrayEquals(new long[]{3L}, index.search("watch", 2, 2));
+    }
+
+    @Test
+    void addedProductsBecomeSearchable() {
+        rebuildWith();
+
+        index.add(7L, "PROD00000000007", "Speaker", "Bluetooth");
+        index.refresh();
+
+        assertArrayEquals(new long[]{7L}, index.search("bluetooth", 0, 10));
+    }
+
+    @Test
+    void rejectsPagingBeyondLimit() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("phone", ProductTextIndex.MAX_RESULTS, 1));
+    }
+
+    private void rebuildWith(ProductResponse... products) {
+        when(productRepository.streamAfter(0L)).thenReturn(Stream.of(products));
+        index.rebuild();
+    }
+
+    private static ProductResponse product(Long id, String code, String name, String description) {
+        return new ProductResponse(id, code, name, BigDecimal.TEN, BigDecimal.TEN, description);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.productapi.service;
+
+import com.example.productapi.dto.ReviewRequest;
+import com.example.productapi.exception.ProductNotFoundException;
+import com.example.productapi.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ReviewIngestionQueueTest {
+
+    private ProductService productService;
+    private SimpleMeterRegistry meterRegistry;
+    private ReviewIngestionQueue queue;
+    private final List<List<PendingReview>> batches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ProductService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(productService.productIdOf(any())).thenAnswer(inv -> {
+            throw new ProductNotFoundException(inv.getArgument(0));
+        });
+        doReturn(1L).when(productService).productIdOf("PROD00000000001");
+        doAnswer(inv -> batches.add(List.copyOf(inv.<List<PendingReview>>getArgument(0))))
+                .when(productService).addReviews(anyList());
+
+        queue = new ReviewIngestionQueue(productService, 3, 2,
+                Duration.ofMillis(20), Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void testRejectsWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await();
+            return null;
+        }).when(productService).addReviews(anyList());
+        queue.start();
+
+        int accepted = 0;
+        int rejected = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                queue.submit("PROD00000000001", review(5));
+                accepted++;
+            } catch (TooManyRequestsException ex) {
+                rejected++;
+            }
+        }
+        release.countDown();
+
+        // Capacity 3 plus at most one batch of 2 held by the blocked writer
+        assertTrue(accepted <= 5, "accepted " + accepted);
+        assertEquals(10 - accepted, rejected);
+        assertEquals(rejected, meterRegistry.get("reviews.rejected").counter().count());
+    }
+
+    @Test
+    void testRejectsAfterStop() {
+        queue.start();
+        queue.stop();
+
+        assertThrows(TooManyRequestsException.class, () -> queue.submit("PROD00000000001", review(5)));
+    }
+
+    @Test
+    void testRejectsUnknownProduct() {
+        queue.start();
+
+        assertThrows(ProductNotFoundException.class, () -> queue.submit("PROD00000000999", review(5)));
+    }
+
+    @Test
+    void testDrainsInBatchesOnStop() {
+        queue.start();
+        for (int i = 1; i <= 3; i++) {
+            queue.submit("PROD00000000001", review(i));
+        }
+
+        queue.stop();
+
+        assertEquals(3, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 2));
+        assertEquals(0, queue.depth());
+        assertEquals(3.0, meterRegistry.get("reviews.written").counter().count());
+        assertEquals(0.0, meterRegistry.get("reviews.queue.depth").gauge().value());
+    }
+
+    @Test
+    void testRetriesFailedBatchOneByOne() {
+        doThrow(new IllegalStateException("boom"))
+                .doAnswer(inv -> batches.add(inv.getArgument(0)))
+                .doThrow(new IllegalStateException("bad row"))
+                .when(productService).addReviews(anyList());
+        queue.start();
+        queue.submit("PROD00000000001", review(4));
+        queue.submit("PROD00000000001", review(5));
+
+        queue.stop();
+
+        assertEquals(1.0, meterRegistry.get("reviews.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("reviews.failed").counter().count());
+    }
+
+    private static ReviewRequest review(int rating) {
+        return new ReviewRequest("Alice", "Text", rating);
+    }
+}
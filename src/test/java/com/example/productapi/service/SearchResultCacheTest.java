@@ -0,0 +1,67 @@
+package com.example.productapi.service;
+
+import com.example.productapi.config.CacheConfig;
+import com.example.productapi.dto.ProductPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private static final ProductPage LAST = new ProductPage(List.of(), null);
+    private static final ProductPage MORE = new ProductPage(List.of(), "next");
+
+    private Cache cache;
+    private SearchResultCache searchResultCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        CaffeineCacheManager cacheManager = new CacheConfig()
+                .cacheManager(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = cacheManager.getCache(ProductService.SEARCH_CACHE);
+        searchResultCache = new SearchResultCache(cacheManager, meterRegistry);
+    }
+
+    @Test
+    void testKeyIsNormalized() {
+        assertEquals(SearchKey.of(1, null, "galaxy", SearchMatch.CONTAINS, null, 100),
+                SearchKey.of(1, "  ", " Galaxy ", SearchMatch.CONTAINS, null, 100));
+    }
+
+    @Test
+    void testKeyIncludesCatalogVersion() {
+        cache.put(SearchKey.of(1, null, "galaxy", SearchMatch.CONTAINS, null, 100), LAST);
+
+        assertNotNull(cache.get(SearchKey.of(1, null, "galaxy", SearchMatch.CONTAINS, null, 100)));
+        assertNull(cache.get(SearchKey.of(2, null, "galaxy", SearchMatch.CONTAINS, null, 100)));
+    }
+
+    @Test
+    void testInvalidateAll() {
+        cache.put(SearchKey.of(1, null, null, SearchMatch.CONTAINS, null, 100), MORE);
+
+        searchResultCache.invalidateAll();
+
+        assertNull(cache.get(SearchKey.of(1, null, null, SearchMatch.CONTAINS, null, 100)));
+    }
+
+    @Test
+    void testHitRatioIsPublished() {
+        SearchKey key = SearchKey.of(1, "prod", null, SearchMatch.CONTAINS, null, 100);
+        cache.put(key, LAST);
+        cache.get(key);
+        cache.get(SearchKey.of(1, "other", null, SearchMatch.CONTAINS, null, 100));
+
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", ProductService.SEARCH_CACHE)
+                .gauge().value());
+    }
+}